@@ -0,0 +1,58 @@
+package controllers;
+
+import model.Status;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Замер средней задержки createTask в зависимости от количества задач в расписании.
+// Запуск: java controllers.CreateTaskLatencyBenchmark [размер1 размер2 ...]
+public class CreateTaskLatencyBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_CREATES = 20_000;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{1_000, 10_000, 100_000} : parseSizes(args);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            measure(sizes[0]);
+        }
+
+        System.out.printf("%12s %16s%n", "board size", "create, ns/op");
+        for (int size : sizes) {
+            System.out.printf("%12d %16.1f%n", size, measure(size));
+        }
+    }
+
+    private static double measure(int boardSize) {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        for (int i = 0; i < boardSize; i++) {
+            manager.createTask(slot(i));
+        }
+
+        // новые задачи вставляются в промежутки между существующими, чтобы
+        // проверка пересечений каждый раз шла по середине расписания
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_CREATES; i++) {
+            int gap = (int) ((long) i * boardSize / MEASURED_CREATES);
+            int id = manager.createTask(new Task(0, "Inserted " + i, "", Status.NEW,
+                    Duration.ofMinutes(1), BASE.plusMinutes(gap * 10L + 5)));
+            manager.deleteTaskById(id);
+        }
+        return (System.nanoTime() - start) / (double) MEASURED_CREATES;
+    }
+
+    private static Task slot(int i) {
+        return new Task(0, "Task " + i, "", Status.NEW, Duration.ofMinutes(2), BASE.plusMinutes(i * 10L));
+    }
+
+    private static int[] parseSizes(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+}
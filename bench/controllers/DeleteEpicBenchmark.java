@@ -0,0 +1,56 @@
+package controllers;
+
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Каскадное удаление эпика: подзадачи уходят из хранилища, расписания и истории.
+// Эпик пересоздаётся перед каждым вызовом, поэтому замер идёт по одному удалению
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeleteEpicBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"100000"})
+    public int boardSize;
+
+    @Param({"100", "10000"})
+    public int subtaskCount;
+
+    private InMemoryTaskManager manager;
+    private LocalDateTime epicStart;
+    private int epicId;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        manager = new InMemoryTaskManager();
+        for (int i = 0; i < boardSize; i++) {
+            manager.createTask(new Task(0, "Task " + i, "", Status.NEW,
+                    Duration.ofMinutes(2), BASE.plusMinutes(i * 10L)));
+        }
+        epicStart = BASE.plusMinutes(boardSize * 10L + 10);
+    }
+
+    @Setup(Level.Invocation)
+    public void createEpic() {
+        epicId = manager.createEpic(new Epic(0, "Epic", ""));
+        for (int i = 0; i < subtaskCount; i++) {
+            int id = manager.createSubtask(new Subtask(0, "Subtask " + i, "", Status.NEW,
+                    Duration.ofMinutes(2), epicStart.plusMinutes(i * 10L), epicId));
+            // половина подзадач попадает в историю, чтобы удаление чистило и её
+            if (i % 2 == 0) manager.getSubtaskById(id);
+        }
+    }
+
+    @Benchmark
+    public void deleteEpicById() {
+        manager.deleteEpicById(epicId);
+    }
+}
@@ -0,0 +1,79 @@
+package controllers;
+
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Запись снимка и загрузка из файла для обоих форматов снимка.
+// Доска заполняется через журнал с асинхронной записью, чтобы подготовка
+// не сохраняла снимок после каждого изменения
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class FileBackedBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"1000", "100000", "1000000"})
+    public int boardSize;
+
+    @Param({"CSV", "BINARY"})
+    public SnapshotFormat format;
+
+    private File file;
+    private PersistenceOptions options;
+    private FileBackedTaskManager manager;
+
+    @Setup(Level.Trial)
+    public void fill() throws IOException {
+        file = Files.createTempFile("kanban-bench", ".csv").toFile();
+        options = new PersistenceOptions()
+                .storageMode(StorageMode.JOURNAL)
+                .durability(Durability.ASYNC)
+                .snapshotFormat(format)
+                .compactionInterval(null);
+        manager = new FileBackedTaskManager(file, options);
+
+        int epicId = 0;
+        for (int i = 0; i < boardSize; i++) {
+            LocalDateTime start = BASE.plusMinutes(i * 10L);
+            if (i % 10 == 0) {
+                epicId = manager.createEpic(new Epic(0, "Epic " + i, "Epic description"));
+            } else if (i % 10 < 4) {
+                manager.createSubtask(new Subtask(0, "Subtask " + i, "Subtask description",
+                        Status.IN_PROGRESS, Duration.ofMinutes(5), start, epicId));
+            } else {
+                manager.createTask(new Task(0, "Task " + i, "Task, with comma", Status.NEW,
+                        Duration.ofMinutes(5), start));
+            }
+        }
+        manager.checkpoint();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() {
+        manager.close();
+        new File(file.getPath() + ".log").delete();
+        file.delete();
+    }
+
+    @Benchmark
+    public void save() {
+        manager.checkpoint();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load() {
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, options);
+        loaded.close();
+        return loaded;
+    }
+}
@@ -0,0 +1,46 @@
+package controllers;
+
+import model.Status;
+import model.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Запись просмотра и чтение истории при разном количестве просмотренных задач
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryManagerBenchmark {
+    @Param({"1000", "100000"})
+    public int historySize;
+
+    private HistoryManager history;
+    private Task[] tasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        history = new InMemoryHistoryManager(historySize);
+        tasks = new Task[historySize];
+        for (int i = 0; i < historySize; i++) {
+            tasks[i] = new Task(i + 1, "Task " + i, "", Status.NEW);
+            history.add(tasks[i]);
+        }
+    }
+
+    // Повторный просмотр переносит задачу в конец истории
+    @Benchmark
+    public void add() {
+        cursor = (cursor + 7_919) % historySize;
+        history.add(tasks[cursor]);
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return history.getHistory();
+    }
+}
@@ -0,0 +1,97 @@
+package controllers;
+
+import model.Status;
+import model.Task;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Пропускная способность HttpTaskServer в зависимости от числа одновременных клиентов.
+// Каждый клиент в цикле запрашивает случайную задачу по id; обработчик дополнительно
+// ждёт slowMillis, изображая медленную запись на диск.
+// Запуск: java controllers.HttpThroughputBenchmark [секунд на замер] [slowMillis]
+public class HttpThroughputBenchmark {
+    private static final int BOARD_SIZE = 10_000;
+    private static final int[] CLIENTS = {1, 4, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        HttpTaskServer.enableTcpNoDelay();
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int slowMillis = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        System.out.printf("%-22s %8s %12s%n", "execution model", "clients", "requests/s");
+        run("single worker", new ServerOptions()
+                .executionModel(ExecutionModel.SINGLE_THREAD), seconds, slowMillis);
+        run("platform pool", new ServerOptions()
+                .executionModel(ExecutionModel.PLATFORM_POOL), seconds, slowMillis);
+        run("virtual threads", new ServerOptions()
+                .executionModel(ExecutionModel.VIRTUAL_THREADS), seconds, slowMillis);
+    }
+
+    private static void run(String name, ServerOptions options, int seconds, int slowMillis) throws Exception {
+        TaskManager manager = new ConcurrentTaskManager() {
+            @Override
+            public Task getTaskById(int id) {
+                sleep(slowMillis);
+                return super.getTaskById(id);
+            }
+        };
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Description", Status.NEW));
+        }
+
+        HttpTaskServer server = new HttpTaskServer(manager, options.backlog(256));
+        server.start();
+        try {
+            for (int clients : CLIENTS) {
+                System.out.printf("%-22s %8d %12.0f%n", name, clients, measure(clients, seconds));
+            }
+        } finally {
+            server.stop();
+            manager.close();
+        }
+    }
+
+    private static double measure(int clients, int seconds) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                results.add(pool.submit(() -> {
+                    int done = 0;
+                    while (System.nanoTime() < deadline) {
+                        int id = ThreadLocalRandom.current().nextInt(BOARD_SIZE) + 1;
+                        HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:8080/tasks/" + id)).GET().build();
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                            done++;
+                        }
+                    }
+                    return done;
+                }));
+            }
+            long total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get();
+            }
+            return total / (double) seconds;
+        }
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package controllers;
+
+import model.Status;
+import model.Task;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Время до первого байта и до конца ответа GET /tasks на большой доске.
+// С параметром conditional каждый следующий запрос повторяет ETag предыдущего ответа, как опрос дашборда.
+// Запуск: java controllers.ListResponseBenchmark [размер доски] [повторов] [Accept-Encoding] [conditional]
+public class ListResponseBenchmark {
+    public static void main(String[] args) throws Exception {
+        HttpTaskServer.enableTcpNoDelay();
+        int boardSize = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String acceptEncoding = args.length > 2 ? args[2] : null;
+        boolean conditional = args.length > 3 && args[3].equals("conditional");
+
+        TaskManager manager = new ConcurrentTaskManager();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < boardSize; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Description of task " + i, Status.NEW,
+                    Duration.ofMinutes(5), base.plusMinutes(i * 10L)));
+        }
+
+        HttpTaskServer server = new HttpTaskServer(manager);
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String etag = null;
+            System.out.printf("%6s %8s %12s %12s %14s%n", "round", "status", "ttfb, ms", "total, ms", "bytes");
+            for (int round = 1; round <= rounds; round++) {
+                HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks")).GET();
+                if (acceptEncoding != null) builder.header("Accept-Encoding", acceptEncoding);
+                if (conditional && etag != null) builder.header("If-None-Match", etag);
+                HttpRequest request = builder.build();
+                long start = System.nanoTime();
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                long bytes;
+                long firstByte;
+                try (InputStream body = response.body()) {
+                    bytes = body.read() < 0 ? 0 : 1;
+                    firstByte = System.nanoTime();
+                    bytes += body.transferTo(OutputStream.nullOutputStream());
+                }
+                long end = System.nanoTime();
+                etag = response.headers().firstValue("ETag").orElse(null);
+                System.out.printf("%6d %8d %12.1f %12.1f %14d%n", round, response.statusCode(),
+                        (firstByte - start) / 1e6, (end - start) / 1e6, bytes);
+            }
+        } finally {
+            server.stop();
+            manager.close();
+        }
+    }
+}
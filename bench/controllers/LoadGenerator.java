@@ -0,0 +1,315 @@
+package controllers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import util.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Генератор нагрузки для HttpTaskServer: смесь операций с весами по HTTP через
+// java.net.http.HttpClient. Без url поднимает сервер в этом же процессе, иначе
+// работает с указанным. Набор данных заливается через /batch до замера.
+//
+// Замкнутый цикл (rate=0): clients клиентов шлют следующий запрос сразу после ответа.
+// Открытый цикл (rate>0): запросы уходят по расписанию rate в секунду, не дожидаясь
+// ответов, но не больше clients одновременно. Задержка считается от запланированного
+// момента отправки, поэтому очередь перед сервером тоже попадает в перцентили.
+//
+// Параметры key=value, например:
+//   java controllers.LoadGenerator clients=32 duration=20 mix=get:70,create:10,subtasks:10,prioritized:10
+//   java controllers.LoadGenerator rate=2000 clients=256 tasks=50000 transport=NIO
+//   java controllers.LoadGenerator url=http://host:8080 warmup=0
+public class LoadGenerator {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final int SEED_BATCH = 1_000;
+
+    enum Operation {
+        GET, CREATE, SUBTASKS, PRIORITIZED, PAGE
+    }
+
+    private final Map<String, String> options = new HashMap<>(Map.of(
+            "clients", "16",
+            "duration", "10",
+            "warmup", "3",
+            "rate", "0",
+            "mix", "get:60,create:10,subtasks:20,prioritized:5,page:5",
+            "tasks", "10000",
+            "epics", "1000",
+            "subtasksPerEpic", "5",
+            "transport", "JDK_HTTP_SERVER"));
+    private final Map<Operation, Integer> mix = new LinkedHashMap<>();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private int totalWeight;
+    private String baseUrl;
+    private int[] taskIds;
+    private int[] epicIds;
+
+    public static void main(String[] args) throws Exception {
+        HttpTaskServer.enableTcpNoDelay();
+        LoadGenerator generator = new LoadGenerator();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value: " + arg);
+            String key = arg.substring(0, eq);
+            if (!key.equals("url") && !generator.options.containsKey(key)) {
+                throw new IllegalArgumentException("Unknown option: " + key);
+            }
+            generator.options.put(key, arg.substring(eq + 1));
+        }
+        generator.run();
+    }
+
+    private void run() throws Exception {
+        parseMix(options.get("mix"));
+        HttpTaskServer server = null;
+        TaskManager manager = null;
+        baseUrl = options.get("url");
+        if (baseUrl == null) {
+            manager = Managers.getConcurrent();
+            server = new HttpTaskServer(manager, new ServerOptions()
+                    .transport(Transport.valueOf(options.get("transport").toUpperCase(Locale.ROOT)))
+                    .backlog(1024));
+            server.start();
+            baseUrl = "http://localhost:8080";
+        }
+        try {
+            long seedStart = System.nanoTime();
+            seed(intOption("tasks"), intOption("epics"), intOption("subtasksPerEpic"));
+            System.out.printf("seeded %d tasks and %d epics in %d ms%n",
+                    taskIds.length, epicIds.length, (System.nanoTime() - seedStart) / 1_000_000);
+
+            int warmup = intOption("warmup");
+            if (warmup > 0) load(warmup);
+            Result result = load(intOption("duration"));
+            report(result);
+        } finally {
+            if (server != null) server.stop();
+            if (manager != null) manager.close();
+        }
+    }
+
+    private int intOption(String key) {
+        return Integer.parseInt(options.get(key));
+    }
+
+    private void parseMix(String value) {
+        for (String part : value.split(",")) {
+            String[] pair = part.split(":");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) throw new IllegalArgumentException("Negative weight: " + part);
+            if (weight > 0) mix.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+            totalWeight += weight;
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("Empty operation mix: " + value);
+    }
+
+    // Задачи получают непересекающиеся интервалы, чтобы попасть в /prioritized;
+    // у каждого эпика subtasksPerEpic подзадач в том же пакете
+    private void seed(int tasks, int epics, int subtasksPerEpic) throws Exception {
+        List<Integer> createdTasks = new ArrayList<>();
+        List<Integer> createdEpics = new ArrayList<>();
+        JsonArray batch = new JsonArray();
+        for (int i = 0; i < tasks; i++) {
+            JsonObject task = taskJson("Task " + i);
+            task.addProperty("duration", 15);
+            task.addProperty("startTime", START.plusMinutes(30L * i).toString());
+            batch.add(operation("task", task));
+            if (batch.size() >= SEED_BATCH) sendSeedBatch(batch, createdTasks, null);
+        }
+        sendSeedBatch(batch, createdTasks, null);
+
+        for (int i = 0; i < epics; i++) {
+            if (batch.size() + 1 + subtasksPerEpic > SEED_BATCH) sendSeedBatch(batch, null, createdEpics);
+            int epicIndex = batch.size();
+            batch.add(operation("epic", taskJson("Epic " + i)));
+            for (int s = 0; s < subtasksPerEpic; s++) {
+                JsonObject subtask = taskJson("Subtask " + i + "." + s);
+                subtask.addProperty("epicId", -(epicIndex + 1));
+                batch.add(operation("subtask", subtask));
+            }
+        }
+        sendSeedBatch(batch, null, createdEpics);
+
+        taskIds = createdTasks.stream().mapToInt(Integer::intValue).toArray();
+        epicIds = createdEpics.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void sendSeedBatch(JsonArray batch, List<Integer> tasks, List<Integer> epics) throws Exception {
+        if (batch.isEmpty()) return;
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(batch.toString())).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+        }
+        JsonArray results = JsonParser.parseString(response.body()).getAsJsonArray();
+        for (int i = 0; i < results.size(); i++) {
+            String type = batch.get(i).getAsJsonObject().get("type").getAsString();
+            int id = results.get(i).getAsJsonObject().get("id").getAsInt();
+            if (tasks != null && type.equals("task")) tasks.add(id);
+            if (epics != null && type.equals("epic")) epics.add(id);
+        }
+        while (!batch.isEmpty()) batch.remove(batch.size() - 1);
+    }
+
+    private static JsonObject taskJson(String name) {
+        JsonObject task = new JsonObject();
+        task.addProperty("name", name);
+        task.addProperty("description", "Generated by LoadGenerator");
+        task.addProperty("status", "NEW");
+        return task;
+    }
+
+    private static JsonElement operation(String type, JsonObject task) {
+        JsonObject operation = new JsonObject();
+        operation.addProperty("action", "create");
+        operation.addProperty("type", type);
+        operation.add("task", task);
+        return operation;
+    }
+
+    private Result load(int seconds) throws Exception {
+        Result result = new Result();
+        int clients = intOption("clients");
+        int rate = intOption("rate");
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (rate == 0) {
+                for (int c = 0; c < clients; c++) {
+                    pool.execute(() -> {
+                        while (System.nanoTime() < deadline) {
+                            execute(nextOperation(), System.nanoTime(), result);
+                        }
+                    });
+                }
+            } else {
+                Semaphore inFlight = new Semaphore(clients);
+                long interval = 1_000_000_000L / rate;
+                for (long scheduled = start; scheduled < deadline; scheduled += interval) {
+                    long delay = scheduled - System.nanoTime();
+                    if (delay > 0) LockSupport.parkNanos(delay);
+                    inFlight.acquire();
+                    long intended = scheduled;
+                    pool.execute(() -> {
+                        try {
+                            execute(nextOperation(), intended, result);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            }
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) return entry.getKey();
+        }
+        throw new IllegalStateException();
+    }
+
+    private void execute(Operation operation, long intended, Result result) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest.Builder request;
+        switch (operation) {
+            case GET:
+                request = get("/tasks/" + taskIds[random.nextInt(taskIds.length)]);
+                break;
+            case CREATE:
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/tasks")).POST(
+                        HttpRequest.BodyPublishers.ofString(taskJson("Load " + random.nextInt()).toString()));
+                break;
+            case SUBTASKS:
+                request = get("/epics/" + epicIds[random.nextInt(epicIds.length)] + "/subtasks");
+                break;
+            case PRIORITIZED:
+                request = get("/prioritized");
+                break;
+            case PAGE:
+                request = get("/tasks?limit=50&cursor=" + taskIds[random.nextInt(taskIds.length)]);
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation: " + operation);
+        }
+        boolean failed;
+        try {
+            int status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            failed = status >= 400;
+        } catch (Exception e) {
+            failed = true;
+        }
+        result.record(operation, System.nanoTime() - intended, failed);
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    private void report(Result result) {
+        double seconds = result.elapsedNanos / 1e9;
+        System.out.printf("%s, %d clients, %s, %.1f s%n", options.get("rate").equals("0")
+                        ? "closed loop" : "open loop at " + options.get("rate") + " req/s",
+                intOption("clients"), options.get("url") == null ? options.get("transport") : options.get("url"),
+                seconds);
+        System.out.printf("%-12s %10s %10s %8s %10s %10s %10s %10s %10s%n", "operation", "requests",
+                "req/s", "errors", "p50, ms", "p90, ms", "p99, ms", "p999, ms", "max, ms");
+        long errors = 0;
+        for (Operation operation : mix.keySet()) {
+            long failed = result.errors.get(operation).sum();
+            row(operation.name().toLowerCase(Locale.ROOT), result.latencies.get(operation), failed, seconds);
+            errors += failed;
+        }
+        row("total", result.all, errors, seconds);
+    }
+
+    private static void row(String name, LatencyHistogram histogram, long errors, double seconds) {
+        long[] q = histogram.quantiles(0.5, 0.9, 0.99, 0.999);
+        System.out.printf("%-12s %10d %10.0f %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n", name,
+                histogram.getCount(), histogram.getCount() / seconds, errors,
+                q[0] / 1e6, q[1] / 1e6, q[2] / 1e6, q[3] / 1e6, histogram.getMax() / 1e6);
+    }
+
+    private static class Result {
+        final Map<Operation, LatencyHistogram> latencies = new HashMap<>();
+        final Map<Operation, LongAdder> errors = new HashMap<>();
+        final LatencyHistogram all = new LatencyHistogram();
+        long elapsedNanos;
+
+        Result() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new LatencyHistogram());
+                errors.put(operation, new LongAdder());
+            }
+        }
+
+        void record(Operation operation, long nanos, boolean failed) {
+            latencies.get(operation).record(nanos);
+            all.record(nanos);
+            if (failed) errors.get(operation).increment();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package controllers;
+
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Горячие операции InMemoryTaskManager на заполненной доске.
+// Размер операции не меняет: созданное в замере сразу удаляется
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"1000", "100000", "1000000"})
+    public int boardSize;
+
+    // подзадач в эпике, который обновляется в updateSubtask
+    @Param({"1000"})
+    public int epicSize;
+
+    private InMemoryTaskManager manager;
+    private int epicId;
+    private int[] epicSubtaskIds;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        manager = new InMemoryTaskManager();
+        for (int i = 0; i < boardSize; i++) {
+            manager.createTask(new Task(0, "Task " + i, "", Status.NEW,
+                    Duration.ofMinutes(2), BASE.plusMinutes(i * 10L)));
+        }
+
+        epicId = manager.createEpic(new Epic(0, "Large epic", ""));
+        epicSubtaskIds = new int[epicSize];
+        LocalDateTime epicStart = BASE.plusMinutes(boardSize * 10L + 10);
+        for (int i = 0; i < epicSize; i++) {
+            epicSubtaskIds[i] = manager.createSubtask(new Subtask(0, "Subtask " + i, "", Status.NEW,
+                    Duration.ofMinutes(2), epicStart.plusMinutes(i * 10L), epicId));
+        }
+    }
+
+    // Вставка в промежуток посреди расписания: проверка пересечений идёт по соседям
+    @Benchmark
+    public int createTask() {
+        int gap = nextGap();
+        int id = manager.createTask(new Task(0, "Inserted", "", Status.NEW,
+                Duration.ofMinutes(1), BASE.plusMinutes(gap * 10L + 5)));
+        manager.deleteTaskById(id);
+        return id;
+    }
+
+    @Benchmark
+    public int createSubtask() {
+        int gap = nextGap();
+        int id = manager.createSubtask(new Subtask(0, "Inserted", "", Status.NEW,
+                Duration.ofMinutes(1), BASE.plusMinutes(gap * 10L + 5), epicId));
+        manager.deleteSubtaskById(id);
+        return id;
+    }
+
+    // Смена статуса одной подзадачи большого эпика с пересчётом агрегатов
+    @Benchmark
+    public Status updateSubtask() {
+        int index = cursor++ % epicSize;
+        Subtask existing = manager.getSubtaskById(epicSubtaskIds[index]);
+        Status status = existing.getStatus() == Status.DONE ? Status.NEW : Status.DONE;
+        manager.updateSubtask(new Subtask(existing.getId(), existing.getName(), "", status,
+                existing.getDuration(), existing.getStartTime(), epicId));
+        return manager.getEpicById(epicId).getStatus();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+
+    // Страница из 100 задач с середины доски
+    @Benchmark
+    public Page<Task> findTasksPage() {
+        return manager.findTasks(new TaskQuery().cursor(nextGap()).limit(100));
+    }
+
+    private int nextGap() {
+        cursor = (cursor + 7_919) % boardSize;
+        return cursor;
+    }
+}
@@ -0,0 +1,167 @@
+package controllers;
+
+import model.Status;
+import model.Task;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Сравнение сетевых слоёв HttpTaskServer: пропускная способность и задержки (p50, p99)
+// при замкнутом цикле клиентов на keep-alive соединениях — запрос задачи по id и страница
+// из 50 задач, — а также конвейер: depth запросов одной записью по сырому сокету.
+// Запуск: java controllers.TransportBenchmark [секунд на замер] [глубина конвейера]
+public class TransportBenchmark {
+    private static final int BOARD_SIZE = 10_000;
+    private static final int[] CLIENTS = {1, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        HttpTaskServer.enableTcpNoDelay();
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        System.out.printf("%-16s %-10s %8s %12s %10s %10s%n",
+                "transport", "scenario", "clients", "requests/s", "p50, us", "p99, us");
+        for (Transport transport : Transport.values()) {
+            TaskManager manager = Managers.getConcurrent();
+            for (int i = 0; i < BOARD_SIZE; i++) {
+                manager.createTask(new Task(0, "Task " + i, "Description " + i, Status.NEW));
+            }
+            HttpTaskServer server = new HttpTaskServer(manager,
+                    new ServerOptions().transport(transport).backlog(256));
+            server.start();
+            try {
+                measure(16, 1, false); // прогрев JIT, не учитывается
+                for (int clients : CLIENTS) {
+                    report(transport, "by id", clients, measure(clients, seconds, false));
+                    report(transport, "page", clients, measure(clients, seconds, true));
+                }
+                report(transport, "pipelined", 1, pipelined(seconds, depth));
+            } finally {
+                server.stop();
+                manager.close();
+            }
+        }
+    }
+
+    private static void report(Transport transport, String scenario, int clients, long[] latencies) {
+        Arrays.sort(latencies, 1, latencies.length);
+        int count = latencies.length - 1;
+        System.out.printf("%-16s %-10s %8d %12.0f %10.0f %10.0f%n", transport, scenario, clients,
+                count / (latencies[0] / 1e9), percentile(latencies, count, 0.50), percentile(latencies, count, 0.99));
+    }
+
+    private static double percentile(long[] latencies, int count, double p) {
+        return count == 0 ? 0 : latencies[1 + (int) Math.min(count - 1, count * p)] / 1_000.0;
+    }
+
+    // Первый элемент — длительность замера в наносекундах, дальше задержки запросов
+    private static long[] measure(int clients, int seconds, boolean page) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        List<Future<long[]>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                results.add(pool.submit(() -> {
+                    long[] samples = new long[1024];
+                    int done = 0;
+                    while (System.nanoTime() < deadline) {
+                        int id = ThreadLocalRandom.current().nextInt(BOARD_SIZE) + 1;
+                        String path = page ? "/tasks?limit=50&cursor=" + (id - 1) : "/tasks/" + id;
+                        HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:8080" + path)).GET().build();
+                        long sent = System.nanoTime();
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                            throw new IllegalStateException("unexpected status for " + path);
+                        }
+                        if (done == samples.length) samples = Arrays.copyOf(samples, done * 2);
+                        samples[done++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(samples, done);
+                }));
+            }
+            return merge(results, start);
+        }
+    }
+
+    // Один клиент шлёт depth запросов подряд и ждёт все ответы; задержка — время пачки
+    // на один запрос. Ответы считаются по заголовку Content-Length
+    private static long[] pipelined(int seconds, int depth) throws Exception {
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            batch.append("GET /tasks/").append(i + 1).append(" HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        }
+        byte[] requests = batch.toString().getBytes(StandardCharsets.US_ASCII);
+        long[] samples = new long[1024];
+        int done = 0;
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        try (Socket socket = new Socket("localhost", 8080)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            while (System.nanoTime() < deadline) {
+                long sent = System.nanoTime();
+                out.write(requests);
+                for (int i = 0; i < depth; i++) {
+                    readResponse(in);
+                }
+                long perRequest = (System.nanoTime() - sent) / depth;
+                for (int i = 0; i < depth; i++) {
+                    if (done == samples.length) samples = Arrays.copyOf(samples, done * 2);
+                    samples[done++] = perRequest;
+                }
+            }
+        }
+        long[] result = new long[done + 1];
+        result[0] = System.nanoTime() - start;
+        System.arraycopy(samples, 0, result, 1, done);
+        return result;
+    }
+
+    private static void readResponse(InputStream in) throws Exception {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int b = in.read();
+            if (b < 0) throw new IllegalStateException("connection closed");
+            head.append((char) b);
+        }
+        String headers = head.toString().toLowerCase();
+        int lengthAt = headers.indexOf("content-length:");
+        if (lengthAt < 0) throw new IllegalStateException("no Content-Length in " + head);
+        int length = Integer.parseInt(headers.substring(lengthAt + 15, headers.indexOf("\r\n", lengthAt)).trim());
+        in.readNBytes(length);
+    }
+
+    private static long[] merge(List<Future<long[]>> results, long start) throws Exception {
+        List<long[]> parts = new ArrayList<>();
+        int total = 0;
+        for (Future<long[]> result : results) {
+            long[] part = result.get();
+            parts.add(part);
+            total += part.length;
+        }
+        long[] merged = new long[total + 1];
+        merged[0] = System.nanoTime() - start;
+        int next = 1;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, merged, next, part.length);
+            next += part.length;
+        }
+        return merged;
+    }
+}
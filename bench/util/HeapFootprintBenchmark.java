@@ -0,0 +1,62 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+// Сравнение занимаемой памяти: HashMap<Integer, V> против IntMap<V> и List<Integer> против IntSet.
+// Значения общие для обоих вариантов, поэтому в разницу попадают только сами коллекции.
+// Запуск: java -Xmx2g util.HeapFootprintBenchmark [размер]
+public class HeapFootprintBenchmark {
+    private static final Object VALUE = new Object();
+
+    public static void main(String[] args) {
+        int size = args.length == 0 ? 1_000_000 : Integer.parseInt(args[0]);
+        // id начинаются с 128, чтобы не попасть в кэш Integer.valueOf
+        int firstId = 128;
+
+        System.out.printf("%-28s %14s %12s%n", "collection", "bytes", "bytes/entry");
+        report("HashMap<Integer, V>", size, measure(n -> {
+            Map<Integer, Object> map = new HashMap<>();
+            for (int i = 0; i < n; i++) map.put(firstId + i, VALUE);
+            return map;
+        }, size));
+        report("IntMap<V>", size, measure(n -> {
+            IntMap<Object> map = new IntMap<>();
+            for (int i = 0; i < n; i++) map.put(firstId + i, VALUE);
+            return map;
+        }, size));
+        report("ArrayList<Integer>", size, measure(n -> {
+            List<Integer> list = new ArrayList<>();
+            for (int i = 0; i < n; i++) list.add(firstId + i);
+            return list;
+        }, size));
+        report("IntSet", size, measure(n -> {
+            IntSet set = new IntSet();
+            for (int i = 0; i < n; i++) set.add(firstId + i);
+            return set;
+        }, size));
+    }
+
+    private static long measure(IntFunction<Object> factory, int size) {
+        long before = usedMemory();
+        Object collection = factory.apply(size);
+        long after = usedMemory();
+        if (collection.hashCode() == 42) System.out.print("");
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String name, int size, long bytes) {
+        System.out.printf("%-28s %14d %12.1f%n", name, bytes, bytes / (double) size);
+    }
+}
@@ -0,0 +1,40 @@
+package adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import util.IntSet;
+
+import java.io.IOException;
+
+// IntSet в JSON — обычный массив чисел, как раньше у List<Integer>
+public class IntSetAdapter extends TypeAdapter<IntSet> {
+    @Override
+    public void write(JsonWriter out, IntSet value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int id : value.toArray()) {
+            out.value(id);
+        }
+        out.endArray();
+    }
+
+    @Override
+    public IntSet read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        IntSet result = new IntSet();
+        in.beginArray();
+        while (in.hasNext()) {
+            result.add(in.nextInt());
+        }
+        in.endArray();
+        return result;
+    }
+}
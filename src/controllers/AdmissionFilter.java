@@ -0,0 +1,106 @@
+package controllers;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+
+// Контроль допуска перед обработчиками. Запрос сразу получает 429 с Retry-After, если
+// у клиента кончились токены или уже выполняется предельное число запросов его вида.
+// Чтение (GET, HEAD) и запись ограничиваются отдельно, чтобы дорогие записи не
+// вытесняли дешёвые чтения. Клиент — адрес подключения; заголовок X-Client-Id учитывается
+// только от доверенных прокси, иначе смена заголовка обходила бы лимит
+class AdmissionFilter extends Filter {
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private static final ThreadLocal<Boolean> OVERFLOW = new ThreadLocal<>();
+
+    // Отказ переполненного PLATFORM_POOL для com.sun HttpServer. Его поток приёма на отказ
+    // executor закрывает соединение без ответа, а CallerRunsPolicy занял бы его обработчиком.
+    // Поэтому лишний запрос разбирается в отдельном виртуальном потоке, где фильтр сразу
+    // отвечает 503. /metrics фильтра не имеет и выполняется там же
+    static final RejectedExecutionHandler OVERFLOW_POLICY = (task, executor) ->
+            Thread.ofVirtual().name("http-overflow").start(() -> {
+                OVERFLOW.set(Boolean.TRUE);
+                try {
+                    task.run();
+                } finally {
+                    OVERFLOW.remove();
+                }
+            });
+
+    private final Semaphore reads;
+    private final Semaphore writes;
+    private final RateLimiter rateLimiter;
+    private final Set<String> trustedProxies;
+    private final HttpMetrics metrics;
+
+    AdmissionFilter(ServerOptions options, HttpMetrics metrics) {
+        this.reads = new Semaphore(options.getMaxReadsInFlight());
+        this.writes = new Semaphore(options.getMaxWritesInFlight());
+        this.rateLimiter = options.getClientRate() > 0
+                ? new RateLimiter(options.getClientRate(), options.getClientBurst())
+                : null;
+        this.trustedProxies = options.getTrustedProxies();
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        if (OVERFLOW.get() != null) {
+            reject(exchange, 503, "Server is overloaded", 0, start);
+            return;
+        }
+        if (rateLimiter != null) {
+            long wait = rateLimiter.tryAcquire(clientOf(exchange), start);
+            if (wait > 0) {
+                reject(exchange, 429, "Rate limit exceeded", wait, start);
+                return;
+            }
+        }
+        String method = exchange.getRequestMethod();
+        Semaphore limit = "GET".equals(method) || "HEAD".equals(method) ? reads : writes;
+        if (!limit.tryAcquire()) {
+            reject(exchange, 429, "Server is overloaded", 0, start);
+            return;
+        }
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            limit.release();
+        }
+    }
+
+    private String clientOf(HttpExchange exchange) {
+        String address = exchange.getRemoteAddress().getAddress().getHostAddress();
+        if (!trustedProxies.contains(address)) return address;
+        String id = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+        return id != null && !id.isBlank() ? id : address;
+    }
+
+    // Retry-After в целых секундах, не меньше одной
+    private void reject(HttpExchange exchange, int code, String message, long waitNanos, long start)
+            throws IOException {
+        byte[] body = ("{\"error\": \"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        long retryAfter = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.getResponseHeaders().add("Retry-After", Long.toString(retryAfter));
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+        exchange.close();
+        metrics.record(exchange.getHttpContext().getPath(), exchange.getRequestMethod(), code, false,
+                System.nanoTime() - start, 0, body.length);
+    }
+
+    @Override
+    public String description() {
+        return "Admission control with per-client rate limits";
+    }
+}
@@ -0,0 +1,173 @@
+package controllers;
+
+import model.Task;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Потокобезопасная история, запись в которую не блокирует читателей: add и remove
+// только кладут изменение в неблокирующую очередь, а в упорядоченную историю delegate
+// его переносит единственный потребитель — фоновый поток. Роль потребителя охраняет
+// consumerLock, и её на время может взять читатель, которому нужна свежая история.
+//
+// getHistory() отдаёт последний опубликованный список и может не видеть просмотров,
+// ещё лежащих в очереди. getHistory(true) и getVersion() сначала сами переносят очередь,
+// поэтому видят все add и remove, сделанные до вызова. Список строится не после каждой
+// пачки, а при первом чтении после изменений: поток просмотров без чтений его не копирует
+public class AsyncHistoryManager implements HistoryManager {
+    private final HistoryManager delegate;
+    private final Queue<Object> changes = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock consumerLock = new ReentrantLock();
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+    private final Object recorderLock = new Object();
+    private volatile Thread recorder;
+    private volatile List<Task> published = List.of();
+    private volatile boolean dirty; // история менялась после построения published, под consumerLock
+    private volatile boolean closed;
+
+    // Удаление в очереди; добавление — сам снимок задачи
+    private static final class Removal {
+        final int id;
+
+        Removal(int id) {
+            this.id = id;
+        }
+    }
+
+    // delegate не обязан быть потокобезопасным: к нему обращается только потребитель.
+    // Фоновый поток запускается первым изменением, а останавливается close()
+    public AsyncHistoryManager(HistoryManager delegate) {
+        // клиента SessionHistoryManager берёт из потока вызова, а в потребителе его нет:
+        // все просмотры молча ушли бы в общую сессию
+        if (delegate instanceof SessionHistoryManager) {
+            throw new IllegalArgumentException("SessionHistoryManager reads the client from the calling thread"
+                    + " and cannot be wrapped in AsyncHistoryManager");
+        }
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) return;
+        changes.offer(task.snapshot());
+        wakeRecorder();
+    }
+
+    @Override
+    public void remove(int id) {
+        changes.offer(new Removal(id));
+        wakeRecorder();
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return getHistory(false);
+    }
+
+    @Override
+    public List<Task> getHistory(boolean readYourWrites) {
+        if (!readYourWrites && !dirty) return published;
+        consumerLock.lock();
+        try {
+            if (readYourWrites) drainLocked();
+            if (dirty) {
+                published = delegate.getHistory();
+                dirty = false;
+            }
+            return published;
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        consumerLock.lock();
+        try {
+            drainLocked();
+            return delegate.getVersion();
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    // Останавливает фоновый поток, перенеся всё, что уже в очереди. Изменения после
+    // close() переносят в историю сами читатели
+    @Override
+    public void close() {
+        Thread current;
+        synchronized (recorderLock) {
+            closed = true;
+            current = recorder;
+        }
+        if (current != null) {
+            LockSupport.unpark(current);
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+    }
+
+    // Будит потребителя, только если он уснул: под нагрузкой это два volatile-чтения
+    private void wakeRecorder() {
+        Thread current = recorder;
+        if (current == null) {
+            startRecorder();
+        } else if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    private void startRecorder() {
+        synchronized (recorderLock) {
+            if (recorder == null && !closed) {
+                recorder = Thread.ofVirtual().name("history-recorder").start(this::run);
+            }
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            if (changes.isEmpty()) {
+                sleeping.set(true);
+                // изменение, добавленное до set(true), видно здесь; после — разбудит нас
+                if (changes.isEmpty() && !closed) LockSupport.park(this);
+                sleeping.set(false);
+            } else {
+                drain();
+            }
+        }
+    }
+
+    private void drain() {
+        consumerLock.lock();
+        try {
+            drainLocked();
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    // Изменения извлекаются под блокировкой, поэтому всё, что взято из очереди, успевает
+    // попасть в историю до того, как её увидит следующий обладатель блокировки
+    private void drainLocked() {
+        boolean changed = false;
+        Object change;
+        while ((change = changes.poll()) != null) {
+            if (change instanceof Removal removal) {
+                delegate.remove(removal.id);
+            } else {
+                delegate.add((Task) change);
+            }
+            changed = true;
+        }
+        if (changed) dirty = true;
+    }
+}
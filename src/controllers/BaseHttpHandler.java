@@ -1,32 +1,161 @@
 package controllers;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import model.Status;
+import model.TaskType;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 public abstract class BaseHttpHandler implements HttpHandler {
+    // Ответы меньше порога не сжимаются: выигрыш не окупает заголовки gzip и время процессора
+    static final int COMPRESSION_THRESHOLD = 1024;
+
     protected final TaskManager taskManager;
     protected final Gson gson;
+    private final HttpMetrics metrics;
+    // Случайная часть ETag: версии менеджера начинаются заново после перезапуска,
+    // и без неё старый ETag клиента мог бы совпасть с новой версией других данных
+    private final String etagPrefix = Long.toHexString(new Random().nextLong());
 
-    protected BaseHttpHandler(TaskManager taskManager, Gson gson) {
+    protected BaseHttpHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics) {
         this.taskManager = taskManager;
         this.gson = gson;
+        this.metrics = metrics;
+    }
+
+    // Шаблонный метод: вокруг handleRequest замеряются время, код ответа и объём тел.
+    // Тела считаются обёртками потоков, поэтому исходящие байты — уже после сжатия
+    @Override
+    public final void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        CountingInputStream in = new CountingInputStream(exchange.getRequestBody());
+        CountingOutputStream out = new CountingOutputStream(exchange.getResponseBody());
+        exchange.setStreams(in, out);
+        boolean failed = true;
+        // история просмотров ведётся по клиентам, если менеджер создан с SessionHistoryManager
+        SessionHistoryManager.setCurrentClient(
+                exchange.getRequestHeaders().getFirst(AdmissionFilter.CLIENT_ID_HEADER));
+        try {
+            handleRequest(exchange);
+            failed = false;
+        } finally {
+            SessionHistoryManager.setCurrentClient(null);
+            metrics.record(exchange.getHttpContext().getPath(), exchange.getRequestMethod(),
+                    exchange.getResponseCode(), failed, System.nanoTime() - start, in.count, out.count);
+        }
     }
 
+    protected abstract void handleRequest(HttpExchange exchange) throws IOException;
+
     protected void sendText(HttpExchange exchange, String text, int statusCode) throws IOException {
+        sendText(exchange, text, statusCode, "application/json;charset=utf-8");
+    }
+
+    protected void sendText(HttpExchange exchange, String text, int statusCode,
+                            String contentType) throws IOException {
         byte[] response = text.getBytes(StandardCharsets.UTF_8);
-        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        String encoding = response.length >= COMPRESSION_THRESHOLD ? negotiateEncoding(exchange) : null;
+        if (encoding != null) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(response.length / 4);
+            try (OutputStream os = CompressingOutputStream.wrap(compressed, encoding)) {
+                os.write(response);
+            }
+            response = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
         exchange.sendResponseHeaders(statusCode, response.length);
         try (OutputStream os = exchange.getResponseBody()) {
             os.write(response);
         }
     }
 
+    // Массив пишется в тело ответа поэлементно, без промежуточной строки, с chunked-кодированием.
+    // При ошибке посреди записи поток не закрывается: исключение доходит до сервера (см.
+    // sendInternalError), тот рвёт соединение, и клиент видит оборванный ответ, а не
+    // короткий, но корректный с виду JSON
+    protected void sendJsonArray(HttpExchange exchange, Collection<?> items) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        String encoding = negotiateEncoding(exchange);
+        OutputStream body;
+        if (encoding == null) {
+            exchange.sendResponseHeaders(200, 0);
+            body = exchange.getResponseBody();
+        } else {
+            body = new CompressingOutputStream(exchange, 200, encoding, COMPRESSION_THRESHOLD);
+        }
+        JsonWriter writer = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(body, StandardCharsets.UTF_8), 8192));
+        writer.beginArray();
+        for (Object item : items) {
+            gson.toJson(item, item.getClass(), writer);
+        }
+        writer.endArray();
+        writer.close();
+    }
+
+    // Выбор сжатия по Accept-Encoding: gzip, если клиент не предпочёл deflate явно, затем deflate.
+    // null — отвечать без сжатия
+    protected String negotiateEncoding(HttpExchange exchange) {
+        List<String> headers = exchange.getRequestHeaders().get("Accept-Encoding");
+        if (headers == null) return null;
+
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String header : headers) {
+            for (String token : header.split(",")) {
+                String[] parts = token.trim().split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                double quality = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(parameter.substring(2));
+                        } catch (NumberFormatException e) {
+                            quality = 0;
+                        }
+                    }
+                }
+                switch (name) {
+                    case "gzip":
+                    case "x-gzip":
+                        gzip = quality;
+                        break;
+                    case "deflate":
+                        deflate = quality;
+                        break;
+                    case "*":
+                        any = quality;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        if (gzip < 0) gzip = Math.max(any, 0);
+        if (deflate < 0) deflate = Math.max(any, 0);
+
+        if (gzip > 0 && gzip >= deflate) return "gzip";
+        if (deflate > 0) return "deflate";
+        return null;
+    }
+
     protected void sendSuccess(HttpExchange exchange, String text) throws IOException {
         sendText(exchange, text, 200);
     }
@@ -44,13 +173,23 @@ public abstract class BaseHttpHandler implements HttpHandler {
     }
 
     protected void sendBadRequest(HttpExchange exchange, String message) throws IOException {
-        sendText(exchange, "{\"error\": \"" + message + "\"}", 400);
+        sendText(exchange, gson.toJson(Map.of("error", message)), 400);
     }
 
     protected void sendInternalError(HttpExchange exchange) throws IOException {
         sendText(exchange, "{\"error\": \"Internal server error\"}", 500);
     }
 
+    // Если заголовки уже ушли, 500 отправить нельзя: исходная ошибка пробрасывается серверу,
+    // и он обрывает соединение вместо того, чтобы дописать ответ
+    protected void sendInternalError(HttpExchange exchange, Exception cause) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException("Response aborted after headers were sent", cause);
+        }
+        sendInternalError(exchange);
+    }
+
     protected String readRequestBody(HttpExchange exchange) throws IOException {
         try (InputStream is = exchange.getRequestBody()) {
             return new String(is.readAllBytes(), StandardCharsets.UTF_8);
@@ -68,4 +207,144 @@ public abstract class BaseHttpHandler implements HttpHandler {
         }
         return Optional.empty();
     }
-}
\ No newline at end of file
+
+    protected long versionOf(TaskType... types) {
+        long version = 0;
+        for (TaskType type : types) {
+            version = Math.max(version, taskManager.getVersion(type));
+        }
+        return version;
+    }
+
+    // Ставит ETag для версии и, если If-None-Match клиента с ним совпадает, отвечает 304
+    // без тела и возвращает true. Версию нужно получить до чтения данных
+    protected boolean checkNotModified(HttpExchange exchange, long version) throws IOException {
+        String etag = "W/\"" + etagPrefix + "-" + version + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) return false;
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // сравнение слабое: W/ у тегов не учитывается
+            if (tag.equals("*") || stripWeak(tag).equals(stripWeak(etag))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    // Параметры строки запроса; при повторе параметра действует последнее значение
+    protected Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) return params;
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    // Выборка из параметров limit, cursor, status, type (через запятую), from и to (ISO-8601).
+    // Некорректное значение — IllegalArgumentException
+    protected TaskQuery parseTaskQuery(Map<String, String> params) {
+        TaskQuery query = new TaskQuery();
+        try {
+            if (params.containsKey("limit")) query.limit(Integer.parseInt(params.get("limit")));
+            if (params.containsKey("cursor")) query.cursor(Integer.parseInt(params.get("cursor")));
+            if (params.containsKey("status")) {
+                query.status(Status.valueOf(params.get("status").toUpperCase(Locale.ROOT)));
+            }
+            if (params.containsKey("type")) {
+                Set<TaskType> types = EnumSet.noneOf(TaskType.class);
+                for (String type : params.get("type").split(",")) {
+                    types.add(TaskType.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                }
+                query.types(types);
+            }
+            if (params.containsKey("from")) query.startFrom(LocalDateTime.parse(params.get("from")));
+            if (params.containsKey("to")) query.startTo(LocalDateTime.parse(params.get("to")));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + e.getParsedString(), e);
+        }
+        return query;
+    }
+
+    // Страница отдаётся обычным JSON-массивом, курсор следующей страницы — в заголовке X-Next-Cursor
+    protected void sendPage(HttpExchange exchange, Page<?> page) throws IOException {
+        if (page.getNextCursor() != null) {
+            exchange.getResponseHeaders().add("X-Next-Cursor", page.getNextCursor().toString());
+        }
+        sendJsonArray(exchange, page.getItems());
+    }
+
+    private static class CountingInputStream extends InputStream {
+        private final InputStream in;
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
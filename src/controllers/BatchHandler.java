@@ -0,0 +1,103 @@
+package controllers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// POST /batch — массив операций вида {"action": "create|update|delete", "type": "task|epic|subtask",
+// "id": ..., "task": {...}}. Ответ — массив результатов по операциям: 200, если пакет
+// применён, 400 с причинами, если хотя бы одна операция не прошла проверку
+public class BatchHandler extends BaseHttpHandler {
+
+    public BatchHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics) {
+        super(taskManager, gson, metrics);
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                sendBadRequest(exchange, "Unsupported method");
+                return;
+            }
+            handleBatch(exchange);
+        } catch (Exception e) {
+            sendInternalError(exchange, e);
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        List<BatchOperation> operations;
+        try {
+            operations = parseOperations(readRequestBody(exchange));
+        } catch (JsonParseException | IllegalArgumentException | IllegalStateException e) {
+            sendBadRequest(exchange, "Invalid JSON format");
+            return;
+        }
+
+        try {
+            List<BatchResult> results = taskManager.executeBatch(operations);
+            boolean applied = results.stream().noneMatch(r -> r.getStatus() == BatchResult.Status.INVALID);
+            sendText(exchange, gson.toJson(results), applied ? 200 : 400);
+        } catch (IllegalArgumentException e) {
+            sendHasInteractions(exchange);
+        }
+    }
+
+    private List<BatchOperation> parseOperations(String body) {
+        JsonArray array = JsonParser.parseString(body).getAsJsonArray();
+        List<BatchOperation> operations = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            JsonObject object = element.getAsJsonObject();
+            BatchOperation.Action action = BatchOperation.Action.valueOf(
+                    required(object, "action").getAsString().toUpperCase(Locale.ROOT));
+            TaskType type = TaskType.valueOf(required(object, "type").getAsString().toUpperCase(Locale.ROOT));
+
+            switch (action) {
+                case CREATE:
+                    operations.add(BatchOperation.create(gson.fromJson(required(object, "task"), classOf(type))));
+                    break;
+                case UPDATE:
+                    Task task = gson.fromJson(required(object, "task"), classOf(type));
+                    // id можно указать рядом с телом, а не внутри него
+                    if (object.has("id")) task.setId(object.get("id").getAsInt());
+                    operations.add(BatchOperation.update(task));
+                    break;
+                default:
+                    operations.add(BatchOperation.delete(type, required(object, "id").getAsInt()));
+            }
+        }
+        return operations;
+    }
+
+    private static JsonElement required(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        if (value == null || value.isJsonNull()) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return value;
+    }
+
+    private static Class<? extends Task> classOf(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return Epic.class;
+            case SUBTASK:
+                return Subtask.class;
+            default:
+                return Task.class;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package controllers;
+
+import model.Task;
+import model.TaskType;
+
+// Одна операция пакета. Для create и update task — новое содержимое,
+// для update и delete id — существующая запись.
+// Подзадача может ссылаться на эпик, созданный раньше в том же пакете:
+// epicId = -(номер операции + 1), например -1 для первой операции
+public class BatchOperation {
+    public enum Action {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private final Action action;
+    private final TaskType type;
+    private final int id;
+    private final Task task;
+
+    private BatchOperation(Action action, TaskType type, int id, Task task) {
+        this.action = action;
+        this.type = type;
+        this.id = id;
+        this.task = task;
+    }
+
+    public static BatchOperation create(Task task) {
+        return new BatchOperation(Action.CREATE, task.getType(), 0, task);
+    }
+
+    public static BatchOperation update(Task task) {
+        return new BatchOperation(Action.UPDATE, task.getType(), task.getId(), task);
+    }
+
+    public static BatchOperation delete(TaskType type, int id) {
+        return new BatchOperation(Action.DELETE, type, id, null);
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+}
@@ -0,0 +1,54 @@
+package controllers;
+
+// Итог одной операции пакета. Если хотя бы одна операция не прошла проверку,
+// пакет не применяется: у ошибочных операций статус INVALID с причиной,
+// у остальных NOT_APPLIED
+public class BatchResult {
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        INVALID,
+        NOT_APPLIED
+    }
+
+    private final int index;
+    private final Status status;
+    private final Integer id;
+    private final String error;
+
+    private BatchResult(int index, Status status, Integer id, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    static BatchResult applied(int index, Status status, int id) {
+        return new BatchResult(index, status, id, null);
+    }
+
+    static BatchResult invalid(int index, String error) {
+        return new BatchResult(index, Status.INVALID, null, error);
+    }
+
+    static BatchResult notApplied(int index) {
+        return new BatchResult(index, Status.NOT_APPLIED, null, null);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,182 @@
+package controllers;
+
+import model.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Двоичный снимок задач.
+// Заголовок: magic (int), версия (short), количество записей (int).
+// Запись: тип (byte), id (int), статус (byte), epicId (int), длительность в минутах (long),
+// начало в секундах от эпохи UTC (long) и наносекунды (int), затем name и description
+// как длина (int) и байты UTF-8. Отсутствующие значения: -1 для длин и длительности,
+// Long.MIN_VALUE для начала
+class BinarySnapshotFormat {
+    static final int MAGIC = 0x4B414E42; // "KANB"
+    static final short VERSION = 1;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NO_VALUE = -1;
+
+    private BinarySnapshotFormat() {
+    }
+
+    static boolean isBinary(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return file.length() >= Integer.BYTES && in.readInt() == MAGIC;
+        }
+    }
+
+    static void write(File file, List<Task> tasks) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(tasks.size());
+            for (Task task : tasks) {
+                writeTask(out, task);
+            }
+        }
+    }
+
+    static void read(File file, Consumer<Task> consumer) throws IOException {
+        CountingInputStream counter = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(file), 64 * 1024), file.length());
+        try (DataInputStream in = new DataInputStream(counter)) {
+            if (in.readInt() != MAGIC) {
+                throw new ManagerSaveException("Not a binary snapshot: " + file, null);
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new ManagerSaveException("Unsupported snapshot version " + version + ": " + file, null);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long offset = counter.position;
+                try {
+                    consumer.accept(readTask(in, counter));
+                } catch (IllegalArgumentException e) {
+                    throw new ManagerSaveException(String.format("Corrupt record %d at offset %d in %s: %s",
+                            i, offset, file, e.getMessage()), e);
+                }
+            }
+        } catch (EOFException e) {
+            throw new ManagerSaveException("Truncated snapshot: " + file, e);
+        }
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeByte(task.getType().ordinal());
+        out.writeInt(task.getId());
+        out.writeByte(task.getStatus() == null ? NO_VALUE : task.getStatus().ordinal());
+        out.writeInt(task.getType() == TaskType.SUBTASK ? ((Subtask) task).getEpicId() : 0);
+        out.writeLong(task.getDuration() == null ? NO_VALUE : task.getDuration().toMinutes());
+
+        LocalDateTime startTime = task.getStartTime();
+        out.writeLong(startTime == null ? NO_TIME : startTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(startTime == null ? 0 : startTime.getNano());
+
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+    }
+
+    private static Task readTask(DataInputStream in, CountingInputStream counter) throws IOException {
+        TaskType type = valueOf(TaskType.values(), in.readByte(), "type");
+        int id = in.readInt();
+        byte statusOrdinal = in.readByte();
+        Status status = statusOrdinal == NO_VALUE ? null : valueOf(Status.values(), statusOrdinal, "status");
+        int epicId = in.readInt();
+        long minutes = in.readLong();
+        Duration duration = minutes == NO_VALUE ? null : Duration.ofMinutes(minutes);
+
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        LocalDateTime startTime = epochSecond == NO_TIME
+                ? null : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+
+        String name = readString(in, counter);
+        String description = readString(in, counter);
+
+        switch (type) {
+            case EPIC:
+                return new Epic(id, name, description);
+            case SUBTASK:
+                return new Subtask(id, name, description, status, duration, startTime, epicId);
+            default:
+                return new Task(id, name, description, status, duration, startTime);
+        }
+    }
+
+    // Испорченный или записанный более новой версией байт не должен превращаться в AIOOBE
+    private static <E> E valueOf(E[] values, byte ordinal, String field) {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IllegalArgumentException("unknown " + field + " " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NO_VALUE);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Длина проверяется до выделения буфера: испорченное поле не должно стоить гигабайта памяти
+    private static String readString(DataInputStream in, CountingInputStream counter) throws IOException {
+        int length = in.readInt();
+        if (length == NO_VALUE) return null;
+        if (length < 0) throw new IllegalArgumentException("negative string length " + length);
+        if (length > counter.remaining()) {
+            throw new IllegalArgumentException("string length " + length + " exceeds remaining "
+                    + counter.remaining() + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Считает прочитанные байты, чтобы сообщение об испорченной записи указывало её смещение
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long size;
+        long position;
+
+        CountingInputStream(InputStream in, long size) {
+            super(in);
+            this.size = size;
+        }
+
+        long remaining() {
+            return size - position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            position += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package controllers;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Тело ответа, которое сжимается, только если оно больше порога.
+// Первые threshold байт копятся в буфере: если ответ в них уместился, он уходит
+// как есть с Content-Length, иначе заголовки отправляются с Content-Encoding
+// и дальше всё пишется через gzip или deflate с chunked-кодированием
+class CompressingOutputStream extends OutputStream {
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private final String encoding;
+    private final byte[] buffer;
+    private int count;
+    private OutputStream out;
+
+    CompressingOutputStream(HttpExchange exchange, int statusCode, String encoding, int threshold) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.encoding = encoding;
+        this.buffer = new byte[threshold];
+    }
+
+    static OutputStream wrap(OutputStream body, String encoding) throws IOException {
+        return "gzip".equals(encoding)
+                ? new GZIPOutputStream(body, 8192)
+                : new DeflaterOutputStream(body, new Deflater(), 8192);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (out == null) {
+            if (count + length <= buffer.length) {
+                System.arraycopy(bytes, offset, buffer, count, length);
+                count += length;
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+            exchange.sendResponseHeaders(statusCode, 0);
+            out = wrap(exchange.getResponseBody(), encoding);
+            out.write(buffer, 0, count);
+        }
+        out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // до превышения порога нечего отправлять: решение о сжатии ещё не принято
+        if (out != null) out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            return;
+        }
+        exchange.sendResponseHeaders(statusCode, count == 0 ? -1 : count);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(buffer, 0, count);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package controllers;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// Потокобезопасный менеджер: чтения выполняются параллельно под read-блокировкой,
+// изменения (включая проверку пересечений и пересчёт эпиков) — под write-блокировкой,
+// поэтому каждая операция атомарна относительно остальных
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ConcurrentTaskManager() {
+        this(new AsyncHistoryManager(Managers.getDefaultHistory()));
+    }
+
+    // historyManager должен быть потокобезопасным: просмотры пишутся под read-блокировкой
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager);
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(() -> snapshots(super.getAllTasks(), Task::snapshot));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(super::deleteAllTasks);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return read(() -> super.getTaskById(id));
+    }
+
+    @Override
+    public int createTask(Task task) {
+        return write(() -> super.createTask(task));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> super.updateTask(task));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        write(() -> super.deleteTaskById(id));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return read(() -> snapshots(super.getAllEpics(), Epic::snapshot));
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(super::deleteAllEpics);
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return read(() -> super.getEpicById(id));
+    }
+
+    @Override
+    public int createEpic(Epic epic) {
+        return write(() -> super.createEpic(epic));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> super.updateEpic(epic));
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        write(() -> super.deleteEpicById(id));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return read(() -> snapshots(super.getAllSubtasks(), Subtask::snapshot));
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(super::deleteAllSubtasks);
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return read(() -> super.getSubtaskById(id));
+    }
+
+    @Override
+    public int createSubtask(Subtask subtask) {
+        return write(() -> super.createSubtask(subtask));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> super.updateSubtask(subtask));
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        write(() -> super.deleteSubtaskById(id));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        return read(() -> snapshots(super.getSubtasksByEpicId(epicId), Subtask::snapshot));
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        write(() -> super.updateEpicStatus(epic));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(super::getHistory);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(() -> snapshots(super.getPrioritizedTasks(), Task::snapshot));
+    }
+
+    @Override
+    public Page<Task> findTasks(TaskQuery query) {
+        return read(() -> {
+            Page<Task> page = super.findTasks(query);
+            return new Page<>(snapshots(page.getItems(), Task::snapshot), page.getNextCursor());
+        });
+    }
+
+    @Override
+    public long getVersion(TaskType type) {
+        return read(() -> super.getVersion(type));
+    }
+
+    @Override
+    public long getEntityVersion(int id) {
+        return read(() -> super.getEntityVersion(id));
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return read(super::getHistoryVersion);
+    }
+
+    @Override
+    public List<BatchResult> executeBatch(List<BatchOperation> operations) {
+        return write(() -> super.executeBatch(operations));
+    }
+
+    // Эпики меняются на месте (агрегаты и список подзадач), а обработчики сериализуют списки
+    // уже после снятия блокировки. Поэтому элементы заменяются неизменяемыми снимками, пока
+    // read-блокировка ещё взята; снимок неизменённой задачи закэширован и не копируется заново
+    private static <T> List<T> snapshots(List<T> items, UnaryOperator<T> snapshot) {
+        items.replaceAll(snapshot);
+        return items;
+    }
+
+    protected <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    protected void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
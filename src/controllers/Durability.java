@@ -0,0 +1,9 @@
+package controllers;
+
+// Когда изменение FileBackedTaskManager считается сохранённым. SYNC и GROUP_COMMIT дожидаются
+// fsync записанного файла; запись каталога после переименования снимка не синхронизируется
+public enum Durability {
+    SYNC,         // файл записывается и синхронизируется с диском до возврата из метода
+    GROUP_COMMIT, // изменения копятся и пишутся одной пачкой, вызывающий ждёт fsync своей пачки
+    ASYNC         // изменения пишутся фоновым потоком без fsync, вызывающий не ждёт
+}
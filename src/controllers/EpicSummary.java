@@ -0,0 +1,79 @@
+package controllers;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Агрегаты эпика, которые поддерживаются при каждом изменении подзадачи:
+// счётчики статусов, суммарная длительность и мультимножества начал и окончаний.
+// Пересчёт эпика по ним стоит O(log k) вместо обхода всех k подзадач
+class EpicSummary {
+    private int total;
+    private int newCount;
+    private int doneCount;
+    private Duration totalDuration = Duration.ZERO;
+    private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+
+    void add(Subtask subtask) {
+        total++;
+        if (subtask.getStatus() == Status.NEW) newCount++;
+        if (subtask.getStatus() == Status.DONE) doneCount++;
+        if (subtask.getDuration() != null) totalDuration = totalDuration.plus(subtask.getDuration());
+        increment(starts, subtask.getStartTime());
+        increment(ends, subtask.getEndTime());
+    }
+
+    void remove(Subtask subtask) {
+        total--;
+        if (subtask.getStatus() == Status.NEW) newCount--;
+        if (subtask.getStatus() == Status.DONE) doneCount--;
+        if (subtask.getDuration() != null) totalDuration = totalDuration.minus(subtask.getDuration());
+        decrement(starts, subtask.getStartTime());
+        decrement(ends, subtask.getEndTime());
+    }
+
+    void clear() {
+        total = 0;
+        newCount = 0;
+        doneCount = 0;
+        totalDuration = Duration.ZERO;
+        starts.clear();
+        ends.clear();
+    }
+
+    void applyTo(Epic epic) {
+        if (total == 0) {
+            epic.setStatus(Status.NEW);
+            epic.setDuration(Duration.ZERO);
+            epic.setStartTime(null);
+            epic.setEndTime(null);
+            return;
+        }
+
+        if (doneCount == total) {
+            epic.setStatus(Status.DONE);
+        } else if (newCount == total) {
+            epic.setStatus(Status.NEW);
+        } else {
+            epic.setStatus(Status.IN_PROGRESS);
+        }
+
+        epic.setDuration(totalDuration);
+        epic.setStartTime(starts.isEmpty() ? null : starts.firstKey());
+        epic.setEndTime(ends.isEmpty() ? null : ends.lastKey());
+    }
+
+    private static void increment(Map<LocalDateTime, Integer> counts, LocalDateTime time) {
+        if (time != null) counts.merge(time, 1, Integer::sum);
+    }
+
+    private static void decrement(Map<LocalDateTime, Integer> counts, LocalDateTime time) {
+        if (time != null) counts.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+}
@@ -5,18 +5,21 @@ import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import model.Epic;
 import model.Subtask;
+import model.TaskType;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class EpicsHandler extends BaseHttpHandler {
 
-    public EpicsHandler(TaskManager taskManager, Gson gson) {
-        super(taskManager, gson);
+    public EpicsHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics) {
+        super(taskManager, gson, metrics);
     }
 
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
+    protected void handleRequest(HttpExchange exchange) throws IOException {
         try {
             String method = exchange.getRequestMethod();
             String path = exchange.getRequestURI().getPath();
@@ -45,14 +48,31 @@ public class EpicsHandler extends BaseHttpHandler {
                     sendBadRequest(exchange, "Unsupported method");
             }
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
     private void handleGetAllEpics(HttpExchange exchange) throws IOException {
-        List<Epic> epics = taskManager.getAllEpics();
-        String response = gson.toJson(epics);
-        sendSuccess(exchange, response);
+        long version = versionOf(TaskType.EPIC);
+        Map<String, String> params = parseQuery(exchange);
+        TaskQuery query = null;
+        if (!params.isEmpty()) {
+            try {
+                query = parseTaskQuery(params);
+                query.types(EnumSet.of(TaskType.EPIC));
+            } catch (IllegalArgumentException e) {
+                sendBadRequest(exchange, "Invalid query parameters");
+                return;
+            }
+        }
+        if (checkNotModified(exchange, version)) return;
+
+        if (query == null) {
+            List<Epic> epics = taskManager.getAllEpics();
+            sendJsonArray(exchange, epics);
+        } else {
+            sendPage(exchange, taskManager.findTasks(query));
+        }
     }
 
     private void handleGetEpicById(HttpExchange exchange) throws IOException {
@@ -63,15 +83,16 @@ public class EpicsHandler extends BaseHttpHandler {
         }
 
         try {
+            long version = taskManager.getEntityVersion(idOpt.get());
             Epic epic = taskManager.getEpicById(idOpt.get());
             if (epic == null) {
                 sendNotFound(exchange);
-            } else {
+            } else if (!checkNotModified(exchange, version)) {
                 String response = gson.toJson(epic);
                 sendSuccess(exchange, response);
             }
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
@@ -85,13 +106,14 @@ public class EpicsHandler extends BaseHttpHandler {
 
         try {
             int epicId = Integer.parseInt(parts[2]);
+            long version = versionOf(TaskType.SUBTASK);
             List<Subtask> subtasks = taskManager.getSubtasksByEpicId(epicId);
-            String response = gson.toJson(subtasks);
-            sendSuccess(exchange, response);
+            if (checkNotModified(exchange, version)) return;
+            sendJsonArray(exchange, subtasks);
         } catch (NumberFormatException e) {
             sendBadRequest(exchange, "Invalid epic ID");
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
@@ -110,7 +132,7 @@ public class EpicsHandler extends BaseHttpHandler {
         } catch (JsonSyntaxException e) {
             sendBadRequest(exchange, "Invalid JSON format");
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
@@ -130,7 +152,7 @@ public class EpicsHandler extends BaseHttpHandler {
             taskManager.deleteEpicById(idOpt.get());
             sendSuccess(exchange, "{\"message\": \"Epic deleted\"}");
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package controllers;
+
+// На каких потоках HttpTaskServer выполняет обработчики запросов
+public enum ExecutionModel {
+    SINGLE_THREAD,   // один поток по очереди: менеджер может быть не потокобезопасным
+    VIRTUAL_THREADS, // отдельный виртуальный поток на каждый запрос
+    PLATFORM_POOL    // ограниченный пул обычных потоков с очередью
+}
@@ -2,92 +2,660 @@ package controllers;
 
 import model.*;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
+    private static final String HEADER = "id,type,name,status,description,duration,startTime,epic";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final String SEALED_SUFFIX = ".log.";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String HISTORY_SUFFIX = ".history";
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DEL";
+    private static final String CLEAR = "CLR";
+    private static final int FIELD_COUNT = 8;
+    private static final long IN_BATCH = -1; // изменение сохранит выполняемый пакет
+
     private final File file;
+    private final File journalFile;
+    private final StorageMode mode;
+    private final SnapshotFormat snapshotFormat;
+    private final Durability durability;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final Duration compactionInterval;
+    private final long compactionThreshold;
+    private final Object snapshotLock = new Object();
+    private final Object writerLock = new Object();
+    private final Object journalLock = new Object();
+    private BufferedWriter journal;
+    private FileChannel journalChannel;
+    private int lastSegment;                    // номер последнего запечатанного журнала, под journalLock
+    private ScheduledExecutorService compactor; // под journalLock
+    private boolean compactorStopped;           // под journalLock
+    private List<String> batchRecords; // записи выполняемого пакета, под блокировкой менеджера
+    private volatile GroupCommitWriter writer;
+    private boolean closed; // под writerLock
+
+    // История просмотров хранится отдельно от задач: просмотр дописывает свой id в журнал
+    // истории фоновой пачкой и никогда не вызывает save(). Каждые historyCompactionThreshold
+    // просмотров фоновый писатель сам переписывает журнал текущей историей
+    private final File historyFile;
+    private final boolean persistHistory;
+    private final int historyCompactionThreshold;
+    private final Object historyLock = new Object();
+    private final Duration historyFlushInterval;
+    private final int historyBatchSize;
+    private volatile GroupCommitWriter historyWriter;
+    private BufferedWriter historyLog;       // под historyLock
+    private int viewsSinceCompaction;       // под historyLock
 
     public FileBackedTaskManager(File file) {
+        this(file, new PersistenceOptions());
+    }
+
+    public FileBackedTaskManager(File file, StorageMode mode) {
+        this(file, new PersistenceOptions().storageMode(mode));
+    }
+
+    public FileBackedTaskManager(File file, PersistenceOptions options) {
         this.file = file;
+        this.journalFile = new File(file.getPath() + JOURNAL_SUFFIX);
+        this.mode = options.getStorageMode();
+        this.snapshotFormat = options.getSnapshotFormat();
+        this.durability = options.getDurability();
+        this.flushInterval = options.getFlushInterval();
+        this.batchSize = options.getBatchSize();
+        this.compactionThreshold = options.getCompactionThreshold();
+        this.compactionInterval = mode == StorageMode.JOURNAL ? options.getCompactionInterval() : null;
+        this.historyFile = new File(file.getPath() + HISTORY_SUFFIX);
+        this.persistHistory = options.isPersistHistory();
+        this.historyCompactionThreshold = options.getHistoryCompactionThreshold();
+        this.historyFlushInterval = options.getFlushInterval();
+        this.historyBatchSize = options.getBatchSize();
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        return loadFromFile(file, new PersistenceOptions());
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, StorageMode mode) {
+        return loadFromFile(file, new PersistenceOptions().storageMode(mode));
+    }
+
+    // Загружает снимок и проигрывает поверх него журнал изменений, если он есть
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceOptions options) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, options);
         try {
-            if (!file.exists() || Files.size(file.toPath()) == 0) {
-                return manager;
+            if (file.exists() && BinarySnapshotFormat.isBinary(file)) {
+                BinarySnapshotFormat.read(file, manager::restore);
+            } else if (file.exists()) {
+                // Первый проход - создаем все задачи
+                manager.readCsv(file);
             }
 
-            List<String> lines = Files.readAllLines(file.toPath());
-            if (lines.size() <= 1) {
-                return manager;
+            // Запечатанные журналы остаются, если сжатие прервалось до удаления; их записи
+            // старше активного журнала, а повторное применение записей ничего не меняет
+            for (File segment : manager.sealedSegments()) {
+                manager.readJournal(segment);
+            }
+            if (manager.journalFile.exists()) manager.readJournal(manager.journalFile);
+            if (manager.journalFile.exists()) {
+                synchronized (manager.journalLock) {
+                    manager.startCompactor();
+                }
             }
 
-            // Первый проход - создаем все задачи
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
-                if (line.isEmpty()) continue;
+            // Второй проход - устанавливаем связи
+            manager.restoreLinks();
 
-                Task task = fromString(line);
-                if (task == null) continue;
+            if (manager.persistHistory && manager.historyFile.exists()) {
+                manager.readHistory();
+                // просмотры удалённых задач отброшены и не должны достаться их id после перезапуска
+                manager.compactHistory();
+            }
 
-                if (task.getId() >= manager.nextId) {
-                    manager.nextId = task.getId() + 1;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error loading from file", e);
+        }
+        return manager;
+    }
+
+    private void restore(Task task) {
+        if (task.getId() >= nextId) {
+            nextId = task.getId() + 1;
+        }
+
+        switch (task.getType()) {
+            case TASK:
+                tasks.put(task.getId(), task);
+                break;
+            case EPIC:
+                epics.put(task.getId(), (Epic) task);
+                break;
+            case SUBTASK:
+                subtasks.put(task.getId(), (Subtask) task);
+                break;
+        }
+    }
+
+    // Файл читается построчно, в памяти одновременно находится только одна запись
+    private void readCsv(File source) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(source.toPath())) {
+            reader.readLine(); // заголовок
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) continue;
+                try {
+                    restore(fromString(line));
+                } catch (RuntimeException e) {
+                    throw malformed(source, lineNumber, e);
                 }
+            }
+        }
+    }
 
-                switch (task.getType()) {
-                    case TASK:
-                        manager.tasks.put(task.getId(), task);
-                        break;
-                    case EPIC:
-                        manager.epics.put(task.getId(), (Epic) task);
-                        break;
-                    case SUBTASK:
-                        manager.subtasks.put(task.getId(), (Subtask) task);
-                        break;
+    // Последняя запись журнала может быть оборвана сбоем посреди записи, такая запись пропускается
+    private void readJournal(File source) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(source.toPath())) {
+            String line = reader.readLine();
+            int lineNumber = 1;
+            while (line != null) {
+                String next = reader.readLine();
+                if (!line.isEmpty()) {
+                    try {
+                        replay(line);
+                    } catch (RuntimeException e) {
+                        if (next != null) throw malformed(source, lineNumber, e);
+                    }
                 }
+                line = next;
+                lineNumber++;
             }
+        }
+    }
 
-            // Второй проход - устанавливаем связи
-            for (Subtask subtask : manager.subtasks.values()) {
-                if (manager.epics.containsKey(subtask.getEpicId())) {
-                    manager.epics.get(subtask.getEpicId()).addSubtaskId(subtask.getId());
-                    manager.addToPrioritized(subtask);
+    // Просмотры проигрываются по порядку; id, которых больше нет, пропускаются
+    private void readHistory() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(historyFile.toPath())) {
+            String line = reader.readLine();
+            int lineNumber = 1;
+            while (line != null) {
+                String next = reader.readLine();
+                if (!line.isEmpty()) {
+                    try {
+                        int id = Integer.parseInt(line);
+                        Task task = tasks.get(id);
+                        if (task == null) task = epics.get(id);
+                        if (task == null) task = subtasks.get(id);
+                        if (task != null) historyManager.add(task);
+                    } catch (RuntimeException e) {
+                        if (next != null) throw malformed(historyFile, lineNumber, e);
+                    }
                 }
+                line = next;
+                lineNumber++;
             }
+        }
+    }
+
+    private static ManagerSaveException malformed(File source, int lineNumber, RuntimeException cause) {
+        return new ManagerSaveException(String.format("Malformed line %d in %s: %s",
+                lineNumber, source, cause.getMessage()), cause);
+    }
+
+    private void replay(String record) {
+        int separator = record.indexOf(',');
+        if (separator < 0) throw new IllegalArgumentException("missing record kind");
+        String kind = record.substring(0, separator);
+        String payload = record.substring(separator + 1);
+
+        switch (kind) {
+            case PUT:
+                restore(fromString(payload));
+                break;
+            case DELETE:
+                int id = Integer.parseInt(payload);
+                tasks.remove(id);
+                epics.remove(id);
+                subtasks.remove(id);
+                break;
+            case CLEAR:
+                TaskType type = TaskType.valueOf(payload);
+                if (type == TaskType.TASK) tasks.clear();
+                if (type == TaskType.EPIC) epics.clear();
+                if (type != TaskType.TASK) subtasks.clear();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown record kind " + kind);
+        }
+    }
+
+    private void restoreLinks() {
+        // Подзадачи удалённых эпиков (каскад из журнала) отбрасываются
+        subtasks.removeIf(subtask -> !epics.containsKey(subtask.getEpicId()));
+        // постраничный обход идёт по возрастанию id, а файл мог быть записан в другом порядке
+        tasks.sortByKey();
+        epics.sortByKey();
+        subtasks.sortByKey();
+        for (Subtask subtask : subtasks.values()) {
+            linkSubtask(subtask);
+            addToPrioritized(subtask);
+        }
+
+        // Восстанавливаем prioritizedTasks для обычных задач
+        for (Task task : tasks.values()) {
+            addToPrioritized(task);
+        }
 
-            // Восстанавливаем prioritizedTasks для обычных задач
-            for (Task task : manager.tasks.values()) {
-                manager.addToPrioritized(task);
+        // Обновляем статусы эпиков
+        epics.values().forEach(this::updateEpicStatus);
+    }
+
+    // Полный снимок всех задач; журнал после него больше не нужен.
+    // Под блокировкой менеджера только копируются ссылки на задачи и запечатывается журнал,
+    // запись файла идёт параллельно с чтениями и изменениями
+    protected void save() {
+        synchronized (snapshotLock) {
+            List<Task> state;
+            synchronized (this) {
+                state = getAllTasks();
+                sealJournal();
             }
 
-            // Обновляем статусы эпиков
-            manager.epics.values().forEach(manager::updateEpicStatus);
+            File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+            try {
+                if (snapshotFormat == SnapshotFormat.BINARY) {
+                    BinarySnapshotFormat.write(tempFile, state);
+                } else {
+                    writeCsv(tempFile, state);
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error saving to file", e);
+            }
+            replaceSnapshot(tempFile);
+            deleteSealedJournal();
+        }
+    }
 
+    // Выгружает текущее состояние в CSV независимо от формата снимков
+    public void exportCsv(File target) {
+        List<Task> state;
+        synchronized (this) {
+            state = getAllTasks();
+        }
+        try {
+            writeCsv(target, state);
         } catch (IOException e) {
-            throw new ManagerSaveException("Error loading from file", e);
+            throw new ManagerSaveException("Error exporting to " + target, e);
         }
-        return manager;
     }
 
-    protected void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            writer.write("id,type,name,status,description,duration,startTime,epic\n");
+    private void writeCsv(File target, List<Task> state) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(target))) {
+            writer.write(HEADER + "\n");
 
             // Сохраняем задачи
-            for (Task task : getAllTasks()) {
+            for (Task task : state) {
                 writer.write(toString(task));
                 writer.newLine();
             }
+        }
+    }
+
+    private void replaceSnapshot(File tempFile) {
+        try {
+            if (durability != Durability.ASYNC) {
+                try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error replacing snapshot " + file, e);
+        }
+    }
+
+    // Записывает свежий снимок и очищает журнал. Изменения, ещё не дошедшие до диска,
+    // попадут и в снимок, и в новый журнал, что безопасно при повторном применении
+    public void checkpoint() {
+        save();
+    }
+
+    // Сжатие запускается с первой записью журнала (или при загрузке непустого журнала),
+    // а не в конструкторе, чтобы поток не увидел недостроенный менеджер; под journalLock
+    private void startCompactor() {
+        if (compactor != null || compactorStopped || compactionInterval == null) return;
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "compactor-" + file.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded,
+                compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void compactIfNeeded() {
+        try {
+            if (journalFile.length() >= compactionThreshold) {
+                save();
+            }
+        } catch (ManagerSaveException e) {
+            // журнал остаётся полным, следующая попытка будет на следующем запуске
+        }
+    }
+
+    // Дожидается записи всех изменений, принятых к моменту вызова
+    public void flush() {
+        GroupCommitWriter current = writer;
+        if (current != null) current.flush();
+        if (historyWriter != null) historyWriter.flush();
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService executor;
+        synchronized (journalLock) {
+            compactorStopped = true;
+            executor = compactor;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        GroupCommitWriter current;
+        synchronized (writerLock) {
+            closed = true;
+            current = writer;
+        }
+        if (current != null) current.close();
+        if (historyWriter != null) historyWriter.close();
+        synchronized (journalLock) {
+            closeJournal();
+        }
+        synchronized (historyLock) {
+            closeHistoryLog();
+        }
+        super.close();
+    }
+
+    private void closeJournal() {
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+                journalChannel = null;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error closing journal", e);
+        }
+    }
+
+    // Новые записи пойдут в чистый журнал, а накопленные ждут, пока их покроет снимок.
+    // Под блокировками только переименование в следующий номер: если прошлый снимок
+    // не записался, старые сегменты остаются рядом и ничего не копируется
+    private void sealJournal() {
+        synchronized (journalLock) {
+            closeJournal();
+            if (!journalFile.exists()) return;
+            File segment;
+            do {
+                segment = segment(++lastSegment);
+            } while (segment.exists());
+            try {
+                try {
+                    Files.move(journalFile.toPath(), segment.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(journalFile.toPath(), segment.toPath());
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error sealing journal " + journalFile, e);
+            }
+        }
+    }
+
+    // Вызывается под snapshotLock после записи снимка, который покрывает все сегменты;
+    // запечатывает журналы только save() под той же блокировкой, так что новых здесь не появится
+    private void deleteSealedJournal() {
+        for (File segment : sealedSegments()) {
+            try {
+                Files.deleteIfExists(segment.toPath());
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error truncating journal " + segment, e);
+            }
+        }
+        synchronized (journalLock) {
+            lastSegment = 0;
+        }
+    }
+
+    private File segment(int number) {
+        return new File(file.getPath() + SEALED_SUFFIX + number);
+    }
+
+    // Запечатанные журналы по возрастанию номера, то есть от старых к новым
+    private List<File> sealedSegments() {
+        String prefix = file.getName() + SEALED_SUFFIX;
+        File[] candidates = file.getAbsoluteFile().getParentFile()
+                .listFiles((dir, name) -> name.startsWith(prefix)
+                        && name.length() > prefix.length()
+                        && name.substring(prefix.length()).chars().allMatch(Character::isDigit));
+        if (candidates == null) return List.of();
+        List<File> segments = new ArrayList<>(List.of(candidates));
+        segments.sort(Comparator.comparingLong(segment ->
+                Long.parseLong(segment.getName().substring(prefix.length()))));
+        return segments;
+    }
+
+    private void appendJournal(List<String> records) throws IOException {
+        synchronized (journalLock) {
+            if (journal == null) {
+                FileOutputStream out = new FileOutputStream(journalFile, true);
+                journal = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                journalChannel = out.getChannel();
+                startCompactor();
+            }
+            for (String record : records) {
+                journal.write(record);
+                journal.newLine();
+            }
+            journal.flush();
+            if (durability != Durability.ASYNC) journalChannel.force(false);
+        }
+    }
+
+    private void appendHistory(List<String> ids) throws IOException {
+        synchronized (historyLock) {
+            if (historyLog == null) {
+                historyLog = new BufferedWriter(new FileWriter(historyFile, true));
+            }
+            for (String id : ids) {
+                historyLog.write(id);
+                historyLog.newLine();
+            }
+            historyLog.flush();
+            viewsSinceCompaction += ids.size();
+            if (viewsSinceCompaction >= historyCompactionThreshold) {
+                viewsSinceCompaction = 0;
+                try {
+                    compactHistory();
+                } catch (ManagerSaveException e) {
+                    // журнал остаётся полным, следующая попытка — ещё через historyCompactionThreshold просмотров
+                }
+            }
+        }
+    }
 
+    private void closeHistoryLog() {
+        try {
+            if (historyLog != null) {
+                historyLog.close();
+                historyLog = null;
+            }
         } catch (IOException e) {
-            throw new ManagerSaveException("Error saving to file", e);
+            throw new ManagerSaveException("Error closing history log", e);
         }
     }
 
+    // Писатель истории создаётся при первом просмотре: менеджеру без просмотров поток не нужен
+    private void recordView(int id) {
+        if (!persistHistory) return;
+        GroupCommitWriter recorder = historyWriter;
+        if (recorder == null) {
+            synchronized (historyLock) {
+                recorder = historyWriter;
+                if (recorder == null) {
+                    recorder = new GroupCommitWriter(this::appendHistory, historyFlushInterval,
+                            historyBatchSize, "history-" + file.getName());
+                    historyWriter = recorder;
+                }
+            }
+        }
+        recorder.submit(String.valueOf(id));
+    }
+
+    // Журнал заменяется списком id текущей истории. Вызывается под historyLock из писателя
+    // истории или при загрузке, поэтому дозаписей во время свёртки нет; порядок блокировок —
+    // historyLock, затем монитор менеджера. Просмотр попадает в историю раньше, чем в писатель:
+    // всё, что уже дописано, есть в прочитанной истории, а ещё не дописанное ляжет после
+    // свёртки и лишь повторит её конец
+    private void compactHistory() {
+        synchronized (historyLock) {
+            List<Task> history;
+            synchronized (this) {
+                history = historyManager.getHistory(true);
+            }
+            StringBuilder ids = new StringBuilder();
+            for (Task task : history) {
+                ids.append(task.getId()).append(System.lineSeparator());
+            }
+            closeHistoryLog();
+            File tempFile = new File(historyFile.getPath() + TEMP_SUFFIX);
+            try {
+                Files.writeString(tempFile.toPath(), ids);
+                try {
+                    Files.move(tempFile.toPath(), historyFile.toPath(),
+                            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile.toPath(), historyFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error compacting history " + historyFile, e);
+            }
+        }
+    }
+
+    // Фоновый писатель создаётся при первом изменении, а не в конструкторе: его поток
+    // вызывает writeBatch, и менеджер к этому моменту должен быть создан полностью
+    private GroupCommitWriter writer() {
+        GroupCommitWriter current = writer;
+        if (current != null) return current;
+        synchronized (writerLock) {
+            if (closed) throw new IllegalStateException("Manager is closed");
+            if (writer == null) {
+                writer = new GroupCommitWriter(this::writeBatch, flushInterval, batchSize,
+                        "persistence-" + file.getName());
+            }
+            return writer;
+        }
+    }
+
+    // Вызывается фоновым писателем с накопленной пачкой изменений
+    private void writeBatch(List<String> records) throws IOException {
+        if (mode == StorageMode.SNAPSHOT) {
+            save();
+        } else {
+            appendJournal(records);
+        }
+    }
+
+    // Регистрирует изменение; вызывается под блокировкой менеджера сразу после него,
+    // поэтому порядок записей совпадает с порядком изменений
+    private long persist(String kind, String payload) {
+        if (batchRecords != null) {
+            batchRecords.add(kind + "," + payload);
+            return IN_BATCH;
+        }
+        if (durability != Durability.SYNC) {
+            return writer().submit(mode == StorageMode.SNAPSHOT ? null : kind + "," + payload);
+        }
+        if (mode == StorageMode.JOURNAL) {
+            try {
+                appendJournal(List.of(kind + "," + payload));
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error writing journal", e);
+            }
+        }
+        return 0;
+    }
+
+    // Ожидание записи и запись снимка выполняются вне блокировки менеджера
+    private void commit(long ticket) {
+        // изменение внутри пакета сохранит сам пакет, одним commit в конце
+        if (ticket == IN_BATCH) return;
+        if (durability == Durability.SYNC && mode == StorageMode.SNAPSHOT) {
+            save();
+        } else if (durability == Durability.GROUP_COMMIT && ticket > 0) {
+            writer.await(ticket);
+        }
+    }
+
+    // Записи пакета уходят одной дозаписью журнала или одним снимком
+    private long persistAll(List<String> records) {
+        if (durability != Durability.SYNC) {
+            GroupCommitWriter current = writer();
+            if (mode == StorageMode.SNAPSHOT) return current.submit(null);
+            long ticket = 0;
+            for (String record : records) {
+                ticket = current.submit(record);
+            }
+            return ticket;
+        }
+        if (mode == StorageMode.JOURNAL) {
+            try {
+                appendJournal(records);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error writing journal", e);
+            }
+        }
+        return 0;
+    }
+
+    private long persistPut(Task task) {
+        if (task != null) return persist(PUT, toString(task));
+        return batchRecords != null ? IN_BATCH : 0;
+    }
+
+    private long persistDelete(int id) {
+        return persist(DELETE, String.valueOf(id));
+    }
+
+    private long persistClear(TaskType type) {
+        return persist(CLEAR, type.name());
+    }
+
     private String toString(Task task) {
         String epicId = task.getType() == TaskType.SUBTASK ?
                 String.valueOf(((Subtask) task).getEpicId()) : "";
@@ -112,116 +680,259 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
     private static String escape(String value) {
         if (value == null) return "";
-        return value.replace(",", "\\,").replace("\n", "\\n");
+        return value.replace("\\", "\\\\").replace(",", "\\,").replace("\n", "\\n");
     }
 
     private static Task fromString(String value) {
-        String[] parts = value.split(",(?=(?:[^\\\"]*\\\"[^\\\"]*\\\")*[^\\\"]*$)", -1);
-        try {
-            int id = Integer.parseInt(parts[0]);
-            TaskType type = TaskType.valueOf(parts[1]);
-            String name = unescape(parts[2]);
-            Status status = Status.valueOf(parts[3]);
-            String description = unescape(parts[4]);
+        String[] parts = split(value);
+        int id = Integer.parseInt(parts[0]);
+        TaskType type = TaskType.valueOf(parts[1]);
+        String name = parts[2];
+        Status status = Status.valueOf(parts[3]);
+        String description = parts[4];
+
+        Duration duration = parts[5].isEmpty() ?
+                null : Duration.ofMinutes(Long.parseLong(parts[5]));
+
+        LocalDateTime startTime = parts[6].isEmpty() ?
+                null : LocalDateTime.parse(parts[6]);
+
+        switch (type) {
+            case EPIC:
+                return new Epic(id, name, description);
+            case SUBTASK:
+                int epicId = parts[7].isEmpty() ? 0 : Integer.parseInt(parts[7]);
+                return new Subtask(id, name, description, status, duration, startTime, epicId);
+            default:
+                return new Task(id, name, description, status, duration, startTime);
+        }
+    }
 
-            Duration duration = parts[5].isEmpty() ?
-                    null : Duration.ofMinutes(Long.parseLong(parts[5]));
+    // Разбор строки без регулярных выражений, за один проход: запятая разделяет поля,
+    // а после обратной косой черты "," — запятая внутри поля, "n" — перевод строки,
+    // "\\" — сама косая черта; остальные символы после неё сохраняются как есть
+    private static String[] split(String line) {
+        String[] fields = new String[FIELD_COUNT];
+        StringBuilder field = new StringBuilder();
+        int count = 0;
+        boolean escaped = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (escaped) {
+                if (c == 'n') {
+                    field.append('\n');
+                } else if (c == ',' || c == '\\') {
+                    field.append(c);
+                } else {
+                    field.append('\\').append(c);
+                }
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == ',') {
+                if (count == FIELD_COUNT - 1) {
+                    throw new IllegalArgumentException("more than " + FIELD_COUNT + " fields");
+                }
+                fields[count++] = field.toString();
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (escaped) field.append('\\');
+        fields[count++] = field.toString();
 
-            LocalDateTime startTime = parts[6].isEmpty() ?
-                    null : LocalDateTime.parse(parts[6]);
+        if (count != FIELD_COUNT) {
+            throw new IllegalArgumentException("expected " + FIELD_COUNT + " fields, found " + count);
+        }
+        return fields;
+    }
 
-            switch (type) {
-                case TASK:
-                    return new Task(id, name, description, status, duration, startTime);
-                case EPIC:
-                    return new Epic(id, name, description);
-                case SUBTASK:
-                    int epicId = parts[7].isEmpty() ? 0 : Integer.parseInt(parts[7]);
-                    return new Subtask(id, name, description, status, duration, startTime, epicId);
-                default:
-                    return null;
-            }
-        } catch (Exception e) {
-            return null;
+    // История читается и писателем истории при свёртке, поэтому просмотры и чтение
+    // истории идут под монитором менеджера, как и изменения
+    @Override
+    public List<Task> getHistory() {
+        synchronized (this) {
+            return super.getHistory();
         }
     }
 
-    private static String unescape(String value) {
-        return value.replace("\\,", ",").replace("\\n", "\n");
+    @Override
+    public Task getTaskById(int id) {
+        Task task;
+        synchronized (this) {
+            task = super.getTaskById(id);
+        }
+        if (task != null) recordView(id);
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic;
+        synchronized (this) {
+            epic = super.getEpicById(id);
+        }
+        if (epic != null) recordView(id);
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask;
+        synchronized (this) {
+            subtask = super.getSubtaskById(id);
+        }
+        if (subtask != null) recordView(id);
+        return subtask;
     }
 
     @Override
     public int createTask(Task task) {
-        int id = super.createTask(task);
-        save();
+        int id;
+        long ticket;
+        synchronized (this) {
+            id = super.createTask(task);
+            ticket = persistPut(tasks.get(id));
+        }
+        commit(ticket);
         return id;
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        long ticket;
+        synchronized (this) {
+            super.updateTask(task);
+            ticket = persistPut(tasks.get(task.getId()));
+        }
+        commit(ticket);
     }
 
     @Override
     public void deleteTaskById(int id) {
-        super.deleteTaskById(id);
-        save();
+        long ticket;
+        synchronized (this) {
+            super.deleteTaskById(id);
+            ticket = persistDelete(id);
+        }
+        commit(ticket);
     }
 
     @Override
     public void deleteAllTasks() {
-        super.deleteAllTasks();
-        save();
+        long ticket;
+        synchronized (this) {
+            super.deleteAllTasks();
+            ticket = persistClear(TaskType.TASK);
+        }
+        commit(ticket);
     }
 
     @Override
     public int createEpic(Epic epic) {
-        int id = super.createEpic(epic);
-        save();
+        int id;
+        long ticket;
+        synchronized (this) {
+            id = super.createEpic(epic);
+            ticket = persistPut(epics.get(id));
+        }
+        commit(ticket);
         return id;
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+        long ticket;
+        synchronized (this) {
+            super.updateEpic(epic);
+            ticket = persistPut(epics.get(epic.getId()));
+        }
+        commit(ticket);
     }
 
     @Override
     public void deleteEpicById(int id) {
-        super.deleteEpicById(id);
-        save();
+        long ticket;
+        synchronized (this) {
+            super.deleteEpicById(id);
+            ticket = persistDelete(id);
+        }
+        commit(ticket);
     }
 
     @Override
     public void deleteAllEpics() {
-        super.deleteAllEpics();
-        save();
+        long ticket;
+        synchronized (this) {
+            super.deleteAllEpics();
+            ticket = persistClear(TaskType.EPIC);
+        }
+        commit(ticket);
     }
 
     @Override
     public int createSubtask(Subtask subtask) {
-        int id = super.createSubtask(subtask);
-        save();
+        int id;
+        long ticket;
+        synchronized (this) {
+            id = super.createSubtask(subtask);
+            ticket = persistPut(subtasks.get(id));
+        }
+        commit(ticket);
         return id;
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        save();
+        long ticket;
+        synchronized (this) {
+            super.updateSubtask(subtask);
+            ticket = persistPut(subtasks.get(subtask.getId()));
+        }
+        commit(ticket);
     }
 
     @Override
     public void deleteSubtaskById(int id) {
-        super.deleteSubtaskById(id);
-        save();
+        long ticket;
+        synchronized (this) {
+            super.deleteSubtaskById(id);
+            ticket = persistDelete(id);
+        }
+        commit(ticket);
     }
 
     @Override
     public void deleteAllSubtasks() {
-        super.deleteAllSubtasks();
-        save();
+        long ticket;
+        synchronized (this) {
+            super.deleteAllSubtasks();
+            ticket = persistClear(TaskType.SUBTASK);
+        }
+        commit(ticket);
+    }
+
+    // Операции пакета только копят записи; сохраняется то, что успело примениться,
+    // даже если пакет оборвался исключением
+    @Override
+    public List<BatchResult> executeBatch(List<BatchOperation> operations) {
+        List<String> records = List.of();
+        long ticket = 0;
+        try {
+            synchronized (this) {
+                batchRecords = new ArrayList<>();
+                try {
+                    return super.executeBatch(operations);
+                } finally {
+                    records = batchRecords;
+                    batchRecords = null;
+                    if (!records.isEmpty()) ticket = persistAll(records);
+                }
+            }
+        } finally {
+            if (!records.isEmpty()) commit(ticket);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,164 @@
+package controllers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Фоновый писатель: копит изменения и отдаёт их на запись одной пачкой,
+// когда набирается batchSize изменений или проходит flushInterval с первого из них
+class GroupCommitWriter {
+    interface Sink {
+        // records содержит накопленные записи журнала в порядке поступления (может быть пустым)
+        void write(List<String> records) throws IOException;
+    }
+
+    private final Sink sink;
+    private final long intervalNanos;
+    private final int batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasWork = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private final Thread thread;
+
+    private List<String> pending = new ArrayList<>();
+    private long submitted; // номер последнего принятого изменения
+    private long taken;     // номер последнего изменения, отданного на запись
+    private long durable;   // номер последнего записанного изменения
+    private boolean flushRequested;
+    private boolean closed;
+    private Exception failure;
+
+    GroupCommitWriter(Sink sink, Duration flushInterval, int batchSize, String name) {
+        this.sink = sink;
+        this.intervalNanos = flushInterval.toNanos();
+        this.batchSize = batchSize;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Принимает изменение и возвращает его номер для await; record может быть null,
+    // если приёмнику достаточно знать, что состояние изменилось
+    long submit(String record) {
+        lock.lock();
+        try {
+            checkState();
+            if (record != null) pending.add(record);
+            submitted++;
+            if (submitted - taken == 1 || submitted - taken >= batchSize) {
+                hasWork.signal();
+            }
+            return submitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ждёт, пока изменение с номером ticket окажется записанным
+    void await(long ticket) {
+        lock.lock();
+        try {
+            while (durable < ticket) {
+                if (failure != null) throw new ManagerSaveException("Error writing changes", failure);
+                written.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Записывает всё принятое к этому моменту, не дожидаясь flushInterval
+    void flush() {
+        long ticket;
+        lock.lock();
+        try {
+            ticket = submitted;
+            if (durable < ticket) {
+                flushRequested = true;
+                hasWork.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        await(ticket);
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            hasWork.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (failure != null) throw new ManagerSaveException("Error writing changes", failure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkState() {
+        if (failure != null) throw new ManagerSaveException("Error writing changes", failure);
+        if (closed) throw new IllegalStateException("Writer is closed");
+    }
+
+    private void run() {
+        lock.lock();
+        try {
+            while (true) {
+                while (taken == submitted && !closed) {
+                    hasWork.awaitUninterruptibly();
+                }
+                if (taken == submitted) return;
+
+                long deadline = System.nanoTime() + intervalNanos;
+                while (!closed && !flushRequested && submitted - taken < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    try {
+                        hasWork.await(remaining, TimeUnit.NANOSECONDS);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+
+                List<String> batch = pending;
+                long target = submitted;
+                pending = new ArrayList<>();
+                taken = target;
+                flushRequested = false;
+
+                lock.unlock();
+                Exception error = null;
+                try {
+                    sink.write(batch);
+                } catch (IOException | RuntimeException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+
+                if (error != null) {
+                    failure = error;
+                    written.signalAll();
+                    return;
+                }
+                durable = target;
+                written.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -8,12 +8,12 @@ import java.util.List;
 
 public class HistoryHandler extends BaseHttpHandler {
 
-    public HistoryHandler(TaskManager taskManager, Gson gson) {
-        super(taskManager, gson);
+    public HistoryHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics) {
+        super(taskManager, gson, metrics);
     }
 
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
+    protected void handleRequest(HttpExchange exchange) throws IOException {
         try {
             if ("GET".equals(exchange.getRequestMethod())) {
                 handleGetHistory(exchange);
@@ -21,13 +21,16 @@ public class HistoryHandler extends BaseHttpHandler {
                 sendBadRequest(exchange, "Unsupported method");
             }
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
     private void handleGetHistory(HttpExchange exchange) throws IOException {
+        // с SessionHistoryManager у каждого клиента своя история
+        exchange.getResponseHeaders().add("Vary", AdmissionFilter.CLIENT_ID_HEADER);
+        long version = taskManager.getHistoryVersion();
+        if (checkNotModified(exchange, version)) return;
         List<Task> history = taskManager.getHistory();
-        String response = gson.toJson(history);
-        sendSuccess(exchange, response);
+        sendJsonArray(exchange, history);
     }
 }
\ No newline at end of file
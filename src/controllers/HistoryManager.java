@@ -9,4 +9,17 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // readYourWrites — история учитывает все add и remove, вызванные до этого.
+    // Синхронным реализациям ждать нечего
+    default List<Task> getHistory(boolean readYourWrites) {
+        return getHistory();
+    }
+
+    // Растёт при каждом изменении истории
+    long getVersion();
+
+    // Останавливает фоновые потоки истории, если они есть
+    default void close() {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package controllers;
+
+import util.LatencyHistogram;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Метрики HTTP по маршрутам и методам: число ответов по кодам, ошибки, задержки
+// и объём тел. Запись не берёт блокировок: счётчики — LongAdder и AtomicLongArray,
+// а существующие ключи ConcurrentHashMap читаются без блокировок.
+// Квантили считаются за всё время работы сервера
+public class HttpMetrics {
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS");
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final Map<String, Map<String, RouteMetrics>> routes = new ConcurrentHashMap<>();
+
+    // status — код ответа или -1, если ответ так и не был отправлен; failed — обработчик
+    // завершился исключением
+    public void record(String route, String method, int status, boolean failed,
+                       long nanos, long bytesIn, long bytesOut) {
+        RouteMetrics metrics = metricsFor(route, METHODS.contains(method) ? method : "OTHER");
+        metrics.latency.record(nanos);
+        if (status >= 100 && status < 600) metrics.statuses.incrementAndGet(status - 100);
+        if (failed || status < 100 || status >= 500) metrics.errors.increment();
+        metrics.bytesIn.add(bytesIn);
+        metrics.bytesOut.add(bytesOut);
+    }
+
+    private RouteMetrics metricsFor(String route, String method) {
+        Map<String, RouteMetrics> byMethod = routes.get(route);
+        if (byMethod == null) byMethod = routes.computeIfAbsent(route, r -> new ConcurrentHashMap<>());
+        RouteMetrics metrics = byMethod.get(method);
+        if (metrics == null) metrics = byMethod.computeIfAbsent(method, m -> new RouteMetrics());
+        return metrics;
+    }
+
+    public LatencyHistogram getLatency(String route, String method) {
+        Map<String, RouteMetrics> byMethod = routes.get(route);
+        RouteMetrics metrics = byMethod == null ? null : byMethod.get(method);
+        return metrics == null ? null : metrics.latency;
+    }
+
+    // Текстовый формат экспозиции Prometheus (version 0.0.4)
+    public String toPrometheusText() {
+        Map<String, RouteMetrics> series = new TreeMap<>();
+        routes.forEach((route, byMethod) -> byMethod.forEach((method, metrics) ->
+                series.put("route=\"" + escape(route) + "\",method=\"" + method + "\"", metrics)));
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "http_requests_total", "counter", "Completed HTTP requests by status code.");
+        series.forEach((labels, metrics) -> {
+            for (int i = 0; i < metrics.statuses.length(); i++) {
+                long value = metrics.statuses.get(i);
+                if (value > 0) sample(out, "http_requests_total", labels + ",status=\"" + (i + 100) + "\"", value);
+            }
+        });
+
+        header(out, "http_request_errors_total", "counter", "Requests that failed with 5xx or an exception.");
+        series.forEach((labels, metrics) -> sample(out, "http_request_errors_total", labels, metrics.errors.sum()));
+
+        header(out, "http_request_duration_seconds", "summary", "Time spent handling a request.");
+        series.forEach((labels, metrics) -> {
+            long[] values = metrics.latency.quantiles(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                sample(out, "http_request_duration_seconds",
+                        labels + ",quantile=\"" + QUANTILES[i] + "\"", seconds(values[i]));
+            }
+            sample(out, "http_request_duration_seconds_sum", labels, seconds(metrics.latency.getSum()));
+            sample(out, "http_request_duration_seconds_count", labels, metrics.latency.getCount());
+        });
+
+        header(out, "http_request_bytes_total", "counter", "Request body bytes received.");
+        series.forEach((labels, metrics) -> sample(out, "http_request_bytes_total", labels, metrics.bytesIn.sum()));
+
+        header(out, "http_response_bytes_total", "counter", "Response body bytes sent, after compression.");
+        series.forEach((labels, metrics) -> sample(out, "http_response_bytes_total", labels, metrics.bytesOut.sum()));
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static class RouteMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLongArray statuses = new AtomicLongArray(500); // коды 100..599
+        final LongAdder errors = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+    }
+}
@@ -1,51 +1,127 @@
 package controllers;
 
 import adapters.DurationAdapter;
+import adapters.IntSetAdapter;
 import adapters.LocalDateTimeAdapter;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class HttpTaskServer {
-    private static final int PORT = 8080;
     private final HttpServer server;
+    private final ExecutorService executor;
     private final TaskManager taskManager;
+    private final boolean ownsManager; // менеджер создан сервером, и stop() его закрывает
+    private final ServerOptions options;
     private final Gson gson;
+    private final HttpMetrics metrics = new HttpMetrics();
 
-    // конструктор с возможностью передачи менеджера для тестирования
+    // конструктор с возможностью передачи менеджера для тестирования; запросы выполняются
+    // по одному, поэтому подойдёт и не потокобезопасный менеджер
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, new ServerOptions().executionModel(ExecutionModel.SINGLE_THREAD));
+    }
+
+    // Кроме SINGLE_THREAD обработчики выполняются параллельно, поэтому менеджер должен быть
+    // потокобезопасным, например из Managers.getConcurrent()
+    public HttpTaskServer(TaskManager taskManager, ServerOptions options) throws IOException {
+        this(taskManager, options, false);
+    }
+
+    // Конструктор по умолчанию: история просмотров у каждого клиента своя. Просмотр пишется
+    // сразу, без AsyncHistoryManager, но ждёт только блокировку сессии своего клиента
+    public HttpTaskServer() throws IOException {
+        this(new ConcurrentTaskManager(Managers.getSessionHistory()), new ServerOptions(), true);
+    }
+
+    private HttpTaskServer(TaskManager taskManager, ServerOptions options, boolean ownsManager) throws IOException {
         this.taskManager = taskManager;
-        this.server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        this.ownsManager = ownsManager;
+        this.options = options;
+        this.server = createServer(options);
+        this.executor = createExecutor(options);
+        this.server.setExecutor(executor);
         this.gson = new GsonBuilder()
                 .registerTypeAdapter(java.time.LocalDateTime.class, new LocalDateTimeAdapter())
                 .registerTypeAdapter(java.time.Duration.class, new DurationAdapter())
+                .registerTypeAdapter(util.IntSet.class, new IntSetAdapter())
                 .create();
 
         configureRoutes();
     }
 
-    // Конструктор по умолчанию
-    public HttpTaskServer() throws IOException {
-        this(Managers.getDefault());
+    // Включает TCP_NODELAY для всех com.sun HttpServer в JVM; действует, только если вызван
+    // до создания первого сервера. Без него ответ из двух записей (заголовки и тело) ждёт
+    // отложенного ACK клиента, и каждый запрос на keep-alive соединении стоит около 40 мс.
+    // Транспорт NIO выставляет опцию на своих сокетах сам
+    public static void enableTcpNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static HttpServer createServer(ServerOptions options) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(options.getPort());
+        switch (options.getTransport()) {
+            case NIO:
+                return NioHttpServer.open(address, options.getBacklog());
+            default:
+                return HttpServer.create(address, options.getBacklog());
+        }
+    }
+
+    private static ExecutorService createExecutor(ServerOptions options) {
+        switch (options.getExecutionModel()) {
+            case SINGLE_THREAD:
+                return Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "http-worker"));
+            case PLATFORM_POOL:
+                AtomicInteger threadNumber = new AtomicInteger();
+                // NIO сам отвечает 503 на отказ executor, а com.sun HttpServer только закрыл бы соединение
+                RejectedExecutionHandler overflow = options.getTransport() == Transport.NIO
+                        ? new ThreadPoolExecutor.AbortPolicy() : AdmissionFilter.OVERFLOW_POLICY;
+                return new ThreadPoolExecutor(options.getPoolSize(), options.getPoolSize(),
+                        0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(options.getQueueCapacity()),
+                        runnable -> new Thread(runnable, "http-worker-" + threadNumber.incrementAndGet()),
+                        overflow);
+            default:
+                return Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name("http-", 0).factory());
+        }
     }
 
     private void configureRoutes() {
-        server.createContext("/tasks", new TasksHandler(taskManager, gson));
-        server.createContext("/subtasks", new SubtasksHandler(taskManager, gson));
-        server.createContext("/epics", new EpicsHandler(taskManager, gson));
-        server.createContext("/history", new HistoryHandler(taskManager, gson));
-        server.createContext("/prioritized", new PrioritizedHandler(taskManager, gson));
+        AdmissionFilter admission = new AdmissionFilter(options, metrics);
+        route("/tasks", new TasksHandler(taskManager, gson, metrics), admission);
+        route("/subtasks", new SubtasksHandler(taskManager, gson, metrics), admission);
+        route("/epics", new EpicsHandler(taskManager, gson, metrics), admission);
+        route("/history", new HistoryHandler(taskManager, gson, metrics), admission);
+        route("/prioritized", new PrioritizedHandler(taskManager, gson, metrics), admission);
+        route("/batch", new BatchHandler(taskManager, gson, metrics), admission);
+        // /metrics не проходит контроль допуска: при перегрузке метрики нужнее всего
+        server.createContext("/metrics", new MetricsHandler(taskManager, gson, metrics));
+    }
+
+    private void route(String path, HttpHandler handler, Filter admission) {
+        server.createContext(path, handler).getFilters().add(admission);
     }
 
     public void start() {
         server.start();
-        System.out.println("HTTP Task Server started on port " + PORT);
+        System.out.println("HTTP Task Server started on port " + options.getPort());
     }
 
+    // Переданный снаружи менеджер остаётся открытым: его закрывает тот, кто его создал
     public void stop() {
         server.stop(0);
+        executor.shutdown();
+        if (ownsManager) taskManager.close();
         System.out.println("HTTP Task Server stopped");
     }
 
@@ -53,7 +129,12 @@ public class HttpTaskServer {
         return gson;
     }
 
+    public HttpMetrics getMetrics() {
+        return metrics;
+    }
+
     public static void main(String[] args) throws IOException {
+        enableTcpNoDelay();
         HttpTaskServer httpTaskServer = new HttpTaskServer();
         httpTaskServer.start();
 
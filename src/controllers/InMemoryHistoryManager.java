@@ -1,56 +1,125 @@
 package controllers;
 
 import model.Task;
+import util.IntMap;
 
 import java.util.*;
 
+// История просмотров. По умолчанию не ограничена, как и раньше; с capacity и maxBytes
+// вытесняются давно не просмотренные задачи: не больше capacity задач и, если задан,
+// не больше maxBytes по оценке занимаемой памяти
 public class InMemoryHistoryManager implements HistoryManager {
+    // Узел, снимок задачи с её полями и запись в IntMap без учёта строк
+    private static final int NODE_OVERHEAD = 160;
+
+    // В узле — неизменяемый снимок задачи, общий с менеджером, а не копия
     private static class Node {
         Task task;
         Node prev;
         Node next;
+        long bytes;
+
+        Node(Task task) {
+            setTask(task);
+        }
 
-        Node(Task task, Node prev, Node next) {
-            // создаём КОПИЮ задачи, включая новые поля
-            this.task = new Task(task.getId(), task.getName(),
-                    task.getDescription(), task.getStatus(),
-                    task.getDuration(), task.getStartTime());
-            this.prev = prev;
-            this.next = next;
+        void setTask(Task task) {
+            this.task = task.snapshot();
+            this.bytes = NODE_OVERHEAD + sizeOf(task.getName()) + sizeOf(task.getDescription());
         }
     }
 
-    private final Map<Integer, Node> nodeMap = new HashMap<>();
+    private final IntMap<Node> nodeMap = new IntMap<>();
+    private final int capacity;
+    private final long maxBytes;
     private Node head;
     private Node tail;
+    private long bytes;
+    private long version;
+    // Список для getHistory, собирается заново только после изменения истории
+    private List<Task> view = List.of();
+    private long viewVersion;
+
+    public InMemoryHistoryManager() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        this(capacity, Long.MAX_VALUE);
+    }
+
+    // maxBytes ограничивает оценку памяти под историю; последняя просмотренная задача
+    // остаётся в истории, даже если одна не укладывается в бюджет
+    public InMemoryHistoryManager(int capacity, long maxBytes) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        if (maxBytes < 1) throw new IllegalArgumentException("maxBytes must be positive");
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+    }
 
     @Override
     public void add(Task task) {
         if (task == null) return;
-        remove(task.getId());
-        linkLast(task);
+        Node node = nodeMap.get(task.getId());
+        if (node != null) {
+            // повторный просмотр: узел переезжает в конец, без новой аллокации
+            removeNode(node);
+            node.setTask(task);
+            linkLast(node);
+        } else {
+            node = new Node(task);
+            nodeMap.put(task.getId(), node);
+            linkLast(node);
+        }
+        while (nodeMap.size() > capacity || (bytes > maxBytes && head != tail)) {
+            nodeMap.remove(head.task.getId());
+            removeNode(head);
+        }
+        version++;
     }
 
     @Override
     public void remove(int id) {
         Node node = nodeMap.remove(id);
-        if (node != null) removeNode(node);
+        if (node != null) {
+            removeNode(node);
+            version++;
+        }
     }
 
     @Override
     public List<Task> getHistory() {
-        return getTasks();
+        if (viewVersion != version) {
+            view = Collections.unmodifiableList(getTasks());
+            viewVersion = version;
+        }
+        return view;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
     }
 
-    private void linkLast(Task task) {
-        final Node newNode = new Node(task, tail, null);
-        if (tail == null) head = newNode;
-        else tail.next = newNode;
-        tail = newNode;
-        nodeMap.put(task.getId(), newNode);
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Оценка памяти под историю в байтах
+    public long getBytes() {
+        return bytes;
+    }
+
+    private void linkLast(Node node) {
+        node.prev = tail;
+        if (tail == null) head = node;
+        else tail.next = node;
+        tail = node;
+        bytes += node.bytes;
     }
 
     private void removeNode(Node node) {
+        bytes -= node.bytes;
         if (node.prev != null) node.prev.next = node.next;
         else head = node.next;
 
@@ -61,8 +130,13 @@ public class InMemoryHistoryManager implements HistoryManager {
         node.next = null;
     }
 
+    // Строка с заголовком и массивом; символ считается за два байта, как в UTF-16
+    private static long sizeOf(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
     private List<Task> getTasks() {
-        List<Task> tasks = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>(nodeMap.size());
         Node current = head;
         while (current != null) {
             tasks.add(current.task);
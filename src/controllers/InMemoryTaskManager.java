@@ -1,24 +1,43 @@
 package controllers;
 
 import model.*;
-import java.time.Duration;
+import util.IntLongMap;
+import util.IntMap;
+import util.IntSet;
+
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
+    protected final IntMap<Task> tasks = new IntMap<>();
+    protected final IntMap<Subtask> subtasks = new IntMap<>();
+    protected final IntMap<Epic> epics = new IntMap<>();
+    protected final IntMap<EpicSummary> epicSummaries = new IntMap<>();
     protected int nextId = 1;
-    protected final HistoryManager historyManager = Managers.getDefaultHistory();
+    protected final HistoryManager historyManager;
+
+    // Версии для условных GET: номер последнего изменения, после которого
+    // коллекция или сущность стала такой, как сейчас
+    protected long version;
+    protected long tasksVersion;
+    protected long epicsVersion;
+    protected long subtasksVersion;
+    protected final IntLongMap entityVersions = new IntLongMap();
 
-    protected final Set<Task> prioritizedTasks = new TreeSet<>(
+    protected final NavigableSet<Task> prioritizedTasks = new TreeSet<>(
             Comparator.comparing(Task::getStartTime,
                             Comparator.nullsLast(Comparator.naturalOrder()))
                     .thenComparingInt(Task::getId)
     );
 
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
     @Override
     public List<Task> getAllTasks() {
         List<Task> allTasks = new ArrayList<>();
@@ -30,16 +49,22 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteAllTasks() {
-        tasks.keySet().forEach(historyManager::remove);
+        tasks.forEachKey(historyManager::remove);
+        tasks.forEachKey(entityVersions::remove);
         tasks.values().forEach(prioritizedTasks::remove);
         tasks.clear();
+        tasksVersion = ++version;
     }
 
+    // По id отдаётся неизменяемый снимок, тот же, что попадает в историю: пока задача
+    // не менялась, повторные запросы ничего не копируют, а изменённая копируется один раз
     @Override
     public Task getTaskById(int id) {
         Task task = tasks.get(id);
-        if (task != null) historyManager.add(task);
-        return task;
+        if (task == null) return null;
+        Task snapshot = task.snapshot();
+        historyManager.add(snapshot);
+        return snapshot;
     }
 
     @Override
@@ -49,6 +74,7 @@ public class InMemoryTaskManager implements TaskManager {
         checkOverlaps(newTask);
         tasks.put(newTask.getId(), newTask);
         addToPrioritized(newTask);
+        touchTask(newTask.getId());
         return newTask.getId();
     }
 
@@ -57,10 +83,11 @@ public class InMemoryTaskManager implements TaskManager {
         if (tasks.containsKey(task.getId())) {
             Task updatedTask = new Task(task.getId(), task.getName(), task.getDescription(),
                     task.getStatus(), task.getDuration(), task.getStartTime());
-            prioritizedTasks.removeIf(t -> t.getId() == task.getId());
             checkOverlaps(updatedTask);
+            prioritizedTasks.remove(tasks.get(task.getId()));
             tasks.put(updatedTask.getId(), updatedTask);
             addToPrioritized(updatedTask);
+            touchTask(updatedTask.getId());
         }
     }
 
@@ -70,6 +97,8 @@ public class InMemoryTaskManager implements TaskManager {
         if (removed != null) {
             prioritizedTasks.remove(removed);
             historyManager.remove(id);
+            entityVersions.remove(id);
+            tasksVersion = ++version;
         }
     }
 
@@ -80,24 +109,33 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteAllEpics() {
-        epics.keySet().forEach(historyManager::remove);
-        subtasks.keySet().forEach(historyManager::remove);
+        epics.forEachKey(historyManager::remove);
+        subtasks.forEachKey(historyManager::remove);
+        epics.forEachKey(entityVersions::remove);
+        subtasks.forEachKey(entityVersions::remove);
         subtasks.values().forEach(prioritizedTasks::remove);
         epics.clear();
         subtasks.clear();
+        epicSummaries.clear();
+        epicsVersion = ++version;
+        subtasksVersion = version;
     }
 
     @Override
     public Epic getEpicById(int id) {
         Epic epic = epics.get(id);
-        if (epic != null) historyManager.add(epic);
-        return epic;
+        if (epic == null) return null;
+        Epic snapshot = epic.snapshot();
+        historyManager.add(snapshot);
+        return snapshot;
     }
 
     @Override
     public int createEpic(Epic epic) {
         Epic newEpic = new Epic(nextId++, epic.getName(), epic.getDescription());
         epics.put(newEpic.getId(), newEpic);
+        epicSummaries.put(newEpic.getId(), new EpicSummary());
+        touchEpic(newEpic.getId());
         return newEpic.getId();
     }
 
@@ -106,7 +144,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (epics.containsKey(epic.getId())) {
             Epic existing = epics.get(epic.getId());
             Epic updated = new Epic(epic.getId(), epic.getName(), epic.getDescription());
-            existing.getSubtaskIds().forEach(updated::addSubtaskId);
+            existing.forEachSubtaskId(updated::addSubtaskId);
             epics.put(updated.getId(), updated);
             updateEpicStatus(updated);
         }
@@ -116,12 +154,17 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteEpicById(int id) {
         Epic epic = epics.remove(id);
         if (epic != null) {
-            epic.getSubtaskIds().forEach(subtaskId -> {
-                prioritizedTasks.removeIf(t -> t.getId() == subtaskId);
+            epic.forEachSubtaskId(subtaskId -> {
+                Subtask subtask = subtasks.remove(subtaskId);
+                if (subtask != null) prioritizedTasks.remove(subtask);
                 historyManager.remove(subtaskId);
-                subtasks.remove(subtaskId);
+                entityVersions.remove(subtaskId);
             });
+            epicSummaries.remove(id);
             historyManager.remove(id);
+            entityVersions.remove(id);
+            epicsVersion = ++version;
+            subtasksVersion = version;
         }
     }
 
@@ -132,9 +175,12 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteAllSubtasks() {
-        subtasks.keySet().forEach(historyManager::remove);
+        subtasks.forEachKey(historyManager::remove);
+        subtasks.forEachKey(entityVersions::remove);
         subtasks.values().forEach(prioritizedTasks::remove);
         subtasks.clear();
+        subtasksVersion = ++version;
+        epicSummaries.values().forEach(EpicSummary::clear);
         epics.values().forEach(epic -> {
             epic.clearSubtaskIds();
             updateEpicStatus(epic);
@@ -144,8 +190,10 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public Subtask getSubtaskById(int id) {
         Subtask subtask = subtasks.get(id);
-        if (subtask != null) historyManager.add(subtask);
-        return subtask;
+        if (subtask == null) return null;
+        Subtask snapshot = subtask.snapshot();
+        historyManager.add(snapshot);
+        return snapshot;
     }
 
     @Override
@@ -160,7 +208,8 @@ public class InMemoryTaskManager implements TaskManager {
 
         checkOverlaps(newSubtask);
         subtasks.put(newSubtask.getId(), newSubtask);
-        epics.get(newSubtask.getEpicId()).addSubtaskId(newSubtask.getId());
+        linkSubtask(newSubtask);
+        touchSubtask(newSubtask.getId());
         updateEpicStatus(epics.get(newSubtask.getEpicId()));
         addToPrioritized(newSubtask);
         return newSubtask.getId();
@@ -175,9 +224,13 @@ public class InMemoryTaskManager implements TaskManager {
                     subtask.getDuration(), subtask.getStartTime(),
                     existing.getEpicId());
 
-            prioritizedTasks.remove(existing);
             checkOverlaps(updated);
+            prioritizedTasks.remove(existing);
             subtasks.put(updated.getId(), updated);
+            EpicSummary summary = summaryOf(updated.getEpicId());
+            summary.remove(existing);
+            summary.add(updated);
+            touchSubtask(updated.getId());
             updateEpicStatus(epics.get(updated.getEpicId()));
             addToPrioritized(updated);
         }
@@ -189,9 +242,12 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask != null) {
             prioritizedTasks.remove(subtask);
             historyManager.remove(id);
+            entityVersions.remove(id);
+            subtasksVersion = ++version;
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
                 epic.removeSubtaskId(id);
+                summaryOf(epic.getId()).remove(subtask);
                 updateEpicStatus(epic);
             }
         }
@@ -199,62 +255,33 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Subtask> getSubtasksByEpicId(int epicId) {
-        if (!epics.containsKey(epicId)) return Collections.emptyList();
-        return epics.get(epicId).getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        Epic epic = epics.get(epicId);
+        if (epic == null) return Collections.emptyList();
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) result.add(subtask);
+        });
+        return result;
     }
 
     @Override
     public void updateEpicStatus(Epic epic) {
         if (epic == null || !epics.containsKey(epic.getId())) return;
 
-        List<Subtask> subs = getSubtasksByEpicId(epic.getId());
-        if (subs.isEmpty()) {
-            epic.setStatus(Status.NEW);
-            epic.setDuration(Duration.ZERO);
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            return;
-        }
-
-        boolean allNew = subs.stream().allMatch(s -> s.getStatus() == Status.NEW);
-        boolean allDone = subs.stream().allMatch(s -> s.getStatus() == Status.DONE);
-
-        Duration totalDuration = subs.stream()
-                .map(Subtask::getDuration)
-                .filter(Objects::nonNull)
-                .reduce(Duration.ZERO, Duration::plus);
-
-        LocalDateTime earliestStart = subs.stream()
-                .map(Subtask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
-
-        LocalDateTime latestEnd = subs.stream()
-                .map(Subtask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-
-        if (allDone) {
-            epic.setStatus(Status.DONE);
-        } else if (allNew) {
-            epic.setStatus(Status.NEW);
-        } else {
-            epic.setStatus(Status.IN_PROGRESS);
-        }
-
-        epic.setDuration(totalDuration);
-        epic.setStartTime(earliestStart);
-        epic.setEndTime(latestEnd);
+        summaryOf(epic.getId()).applyTo(epic);
+        touchEpic(epic.getId());
     }
 
+    // Просмотры, сделанные до вызова, в истории уже видны, даже если она ведётся асинхронно
     @Override
     public List<Task> getHistory() {
-        return historyManager.getHistory();
+        return historyManager.getHistory(true);
+    }
+
+    @Override
+    public void close() {
+        historyManager.close();
     }
 
     @Override
@@ -262,6 +289,182 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(prioritizedTasks);
     }
 
+    @Override
+    public long getVersion(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return epicsVersion;
+            case SUBTASK:
+                return subtasksVersion;
+            default:
+                return tasksVersion;
+        }
+    }
+
+    @Override
+    public long getEntityVersion(int id) {
+        return entityVersions.get(id, 0);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return historyManager.getVersion();
+    }
+
+    // Слияние упорядоченных по id обходов выбранных хранилищ, начиная сразу после cursor:
+    // страница стоит O(limit + записи, отброшенные фильтрами), а не O(n)
+    @Override
+    public Page<Task> findTasks(TaskQuery query) {
+        if (query.getCursor() == Integer.MAX_VALUE) return new Page<>(new ArrayList<>(), null);
+
+        int from = query.getCursor() + 1;
+        List<Iterator<? extends Task>> sources = new ArrayList<>(3);
+        if (query.getTypes().contains(TaskType.TASK)) sources.add(tasks.ascendingFrom(from));
+        if (query.getTypes().contains(TaskType.EPIC)) sources.add(epics.ascendingFrom(from));
+        if (query.getTypes().contains(TaskType.SUBTASK)) sources.add(subtasks.ascendingFrom(from));
+
+        Task[] heads = new Task[sources.size()];
+        for (int i = 0; i < heads.length; i++) {
+            heads[i] = nextOrNull(sources.get(i));
+        }
+
+        List<Task> items = new ArrayList<>(Math.min(query.getLimit(), 64));
+        while (true) {
+            int smallest = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null && (smallest < 0 || heads[i].getId() < heads[smallest].getId())) {
+                    smallest = i;
+                }
+            }
+            if (smallest < 0) return new Page<>(items, null);
+
+            Task task = heads[smallest];
+            heads[smallest] = nextOrNull(sources.get(smallest));
+            if (!matches(task, query)) continue;
+            // курсор отдаётся, только если за страницей есть ещё хотя бы одна подходящая запись
+            if (items.size() == query.getLimit()) {
+                return new Page<>(items, items.get(items.size() - 1).getId());
+            }
+            items.add(task);
+        }
+    }
+
+    private static Task nextOrNull(Iterator<? extends Task> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static boolean matches(Task task, TaskQuery query) {
+        if (query.getStatus() != null && task.getStatus() != query.getStatus()) return false;
+        LocalDateTime start = task.getStartTime();
+        if (query.getStartFrom() != null && (start == null || start.isBefore(query.getStartFrom()))) {
+            return false;
+        }
+        if (query.getStartTo() != null && (start == null || !start.isBefore(query.getStartTo()))) {
+            return false;
+        }
+        return true;
+    }
+
+    // Пакет проверяется целиком до первого изменения: цели существуют с учётом удалений
+    // раньше в пакете, эпики подзадач на месте, а время не пересекается с расписанием,
+    // каким оно станет после пакета. Если ошибок нет, операции применяются по порядку
+    @Override
+    public List<BatchResult> executeBatch(List<BatchOperation> operations) {
+        BatchPlan plan = new BatchPlan();
+        String[] errors = new String[operations.size()];
+        boolean valid = true;
+        for (int i = 0; i < operations.size(); i++) {
+            errors[i] = plan.check(i, operations.get(i));
+            valid &= errors[i] == null;
+        }
+
+        List<BatchResult> results = new ArrayList<>(operations.size());
+        if (!valid) {
+            for (int i = 0; i < errors.length; i++) {
+                results.add(errors[i] != null ? BatchResult.invalid(i, errors[i]) : BatchResult.notApplied(i));
+            }
+            return results;
+        }
+        int[] createdIds = new int[operations.size()];
+        for (int i = 0; i < operations.size(); i++) {
+            results.add(apply(i, operations.get(i), createdIds));
+        }
+        return results;
+    }
+
+    private BatchResult apply(int index, BatchOperation operation, int[] createdIds) {
+        Task task = operation.getTask();
+        switch (operation.getAction()) {
+            case CREATE:
+                int id;
+                switch (operation.getType()) {
+                    case EPIC:
+                        id = createEpic((Epic) task);
+                        break;
+                    case SUBTASK:
+                        Subtask subtask = (Subtask) task;
+                        int epicId = subtask.getEpicId() < 0
+                                ? createdIds[-subtask.getEpicId() - 1] : subtask.getEpicId();
+                        id = createSubtask(new Subtask(0, subtask.getName(), subtask.getDescription(),
+                                subtask.getStatus(), subtask.getDuration(), subtask.getStartTime(), epicId));
+                        break;
+                    default:
+                        id = createTask(task);
+                }
+                createdIds[index] = id;
+                return BatchResult.applied(index, BatchResult.Status.CREATED, id);
+            case UPDATE:
+                switch (operation.getType()) {
+                    case EPIC:
+                        updateEpic((Epic) task);
+                        break;
+                    case SUBTASK:
+                        updateSubtask((Subtask) task);
+                        break;
+                    default:
+                        updateTask(task);
+                }
+                return BatchResult.applied(index, BatchResult.Status.UPDATED, operation.getId());
+            default:
+                switch (operation.getType()) {
+                    case EPIC:
+                        deleteEpicById(operation.getId());
+                        break;
+                    case SUBTASK:
+                        deleteSubtaskById(operation.getId());
+                        break;
+                    default:
+                        deleteTaskById(operation.getId());
+                }
+                return BatchResult.applied(index, BatchResult.Status.DELETED, operation.getId());
+        }
+    }
+
+    protected void touchTask(int id) {
+        tasksVersion = ++version;
+        entityVersions.put(id, version);
+    }
+
+    protected void touchEpic(int id) {
+        epicsVersion = ++version;
+        entityVersions.put(id, version);
+    }
+
+    protected void touchSubtask(int id) {
+        subtasksVersion = ++version;
+        entityVersions.put(id, version);
+    }
+
+    // Привязывает подзадачу к эпику и учитывает её в агрегатах эпика
+    protected void linkSubtask(Subtask subtask) {
+        epics.get(subtask.getEpicId()).addSubtaskId(subtask.getId());
+        summaryOf(subtask.getEpicId()).add(subtask);
+    }
+
+    protected EpicSummary summaryOf(int epicId) {
+        return epicSummaries.computeIfAbsent(epicId, id -> new EpicSummary());
+    }
+
     protected void addToPrioritized(Task task) {
         if (task.getStartTime() != null && task.getType() != TaskType.EPIC) {
             prioritizedTasks.add(task);
@@ -270,6 +473,7 @@ public class InMemoryTaskManager implements TaskManager {
 
     protected boolean isOverlapping(Task a, Task b) {
         if (a.getStartTime() == null || b.getStartTime() == null) return false;
+        if (a.getEndTime() == null || b.getEndTime() == null) return false;
         return !a.getEndTime().isBefore(b.getStartTime()) &&
                 !a.getStartTime().isAfter(b.getEndTime());
     }
@@ -279,28 +483,175 @@ public class InMemoryTaskManager implements TaskManager {
             return;
         }
 
-        boolean hasOverlap = prioritizedTasks.stream()
-                .anyMatch(existing -> existing.getId() != newTask.getId()
-                        && isOverlapping(newTask, existing));
-
-        if (hasOverlap) {
-            Task conflictingTask = prioritizedTasks.stream()
-                    .filter(existing -> existing.getId() != newTask.getId()
-                            && isOverlapping(newTask, existing))
-                    .findFirst()
-                    .orElse(null);
-
-            throw new IllegalArgumentException(String.format(
-                    "Задача %d ('%s', %s - %s) пересекается по времени с задачей %d ('%s', %s - %s)",
-                    newTask.getId(),
-                    newTask.getName(),
-                    newTask.getStartTime(),
-                    newTask.getEndTime(),
-                    conflictingTask != null ? conflictingTask.getId() : 0,
-                    conflictingTask != null ? conflictingTask.getName() : "unknown",
-                    conflictingTask != null ? conflictingTask.getStartTime() : null,
-                    conflictingTask != null ? conflictingTask.getEndTime() : null
-            ));
+        Task conflictingTask = findOverlapping(newTask);
+        if (conflictingTask != null) {
+            throw new IllegalArgumentException(overlapMessage(newTask, conflictingTask));
+        }
+    }
+
+    private static String overlapMessage(Task newTask, Task conflictingTask) {
+        return String.format(
+                "Задача %d ('%s', %s - %s) пересекается по времени с задачей %d ('%s', %s - %s)",
+                newTask.getId(),
+                newTask.getName(),
+                newTask.getStartTime(),
+                newTask.getEndTime(),
+                conflictingTask.getId(),
+                conflictingTask.getName(),
+                conflictingTask.getStartTime(),
+                conflictingTask.getEndTime()
+        );
+    }
+
+    // Задачи с длительностью в prioritizedTasks не пересекаются между собой, поэтому
+    // их концы растут вместе с началами: достаточно проверить ближайшего соседа
+    // слева и справа от начала новой задачи — O(log n) вместо обхода всего множества
+    protected Task findOverlapping(Task newTask) {
+        return findOverlapping(prioritizedTasks, newTask, null);
+    }
+
+    // ignored — id задач, которые пакет уже заменил или удалил
+    private Task findOverlapping(NavigableSet<Task> schedule, Task newTask, IntSet ignored) {
+        Task probe = new Task(Integer.MAX_VALUE, null, null, null, null, newTask.getStartTime());
+
+        Task before = schedule.floor(probe);
+        while (before != null && !isOverlapCandidate(before, newTask, ignored)) {
+            before = schedule.lower(before);
+        }
+        if (before != null && isOverlapping(newTask, before)) return before;
+
+        Task after = schedule.higher(probe);
+        while (after != null && !isOverlapCandidate(after, newTask, ignored)) {
+            after = schedule.higher(after);
+        }
+        if (after != null && isOverlapping(newTask, after)) return after;
+
+        return null;
+    }
+
+    // задачи без длительности и сама обновляемая задача не участвуют в проверке
+    private boolean isOverlapCandidate(Task existing, Task newTask, IntSet ignored) {
+        return existing.getId() != newTask.getId() && existing.getDuration() != null
+                && (ignored == null || !ignored.contains(existing.getId()));
+    }
+
+    // Состояние, каким его сделают уже проверенные операции пакета. Создаваемые записи
+    // получают временный id -(номер операции + 1) — тот же, которым на них ссылаются подзадачи
+    private class BatchPlan {
+        private final IntSet deleted = new IntSet();
+        private final IntSet replaced = new IntSet(); // изменённые или удалённые, их старое время не в счёт
+        private final IntSet createdEpics = new IntSet();
+        private final IntMap<Task> planned = new IntMap<>();
+        private final IntMap<IntSet> plannedByEpic = new IntMap<>();
+        private final NavigableSet<Task> schedule = new TreeSet<>(prioritizedTasks.comparator());
+
+        String check(int index, BatchOperation operation) {
+            if (operation == null || operation.getAction() == null || operation.getType() == null) {
+                return "Action and type are required";
+            }
+            Task task = operation.getTask();
+            if (operation.getAction() != BatchOperation.Action.DELETE
+                    && (task == null || task.getType() != operation.getType())) {
+                return "Body of type " + operation.getType() + " is required";
+            }
+            switch (operation.getAction()) {
+                case CREATE:
+                    return checkCreate(-(index + 1), task);
+                case UPDATE:
+                    return checkUpdate(operation.getId(), task);
+                default:
+                    return checkDelete(operation.getType(), operation.getId());
+            }
+        }
+
+        private String checkCreate(int tempId, Task task) {
+            int epicId = 0;
+            if (task.getType() == TaskType.SUBTASK) {
+                epicId = ((Subtask) task).getEpicId();
+                if (epicId < 0 ? !createdEpics.contains(epicId) : !exists(TaskType.EPIC, epicId)) {
+                    return "Epic not found: " + epicId;
+                }
+            }
+            Task timing = timingOf(tempId, task);
+            String overlap = checkSchedule(timing);
+            if (overlap != null) return overlap;
+
+            if (task.getType() == TaskType.EPIC) createdEpics.add(tempId);
+            plan(timing);
+            if (epicId > 0 && task.getDuration() != null) {
+                plannedByEpic.computeIfAbsent(epicId, id -> new IntSet()).add(tempId);
+            }
+            return null;
+        }
+
+        private String checkUpdate(int id, Task task) {
+            if (!exists(task.getType(), id)) return task.getType() + " not found: " + id;
+            if (task.getType() == TaskType.EPIC) return null;
+
+            Task timing = timingOf(id, task);
+            String overlap = checkSchedule(timing);
+            if (overlap != null) return overlap;
+
+            replaced.add(id);
+            unplan(id);
+            plan(timing);
+            return null;
+        }
+
+        private String checkDelete(TaskType type, int id) {
+            if (!exists(type, id)) return type + " not found: " + id;
+            remove(id);
+            if (type == TaskType.EPIC) {
+                epics.get(id).forEachSubtaskId(this::remove);
+                IntSet created = plannedByEpic.remove(id);
+                if (created != null) created.forEach(this::unplan);
+            }
+            return null;
+        }
+
+        private boolean exists(TaskType type, int id) {
+            if (id <= 0 || deleted.contains(id)) return false;
+            switch (type) {
+                case EPIC:
+                    return epics.containsKey(id);
+                case SUBTASK:
+                    return subtasks.containsKey(id);
+                default:
+                    return tasks.containsKey(id);
+            }
+        }
+
+        private String checkSchedule(Task timing) {
+            if (timing.getStartTime() == null || timing.getDuration() == null) return null;
+            Task conflicting = findOverlapping(prioritizedTasks, timing, replaced);
+            if (conflicting == null) conflicting = findOverlapping(schedule, timing, null);
+            if (conflicting == null) return null;
+            if (conflicting.getId() < 0) {
+                return "Overlaps with task created by operation " + (-conflicting.getId() - 1);
+            }
+            return overlapMessage(timing, conflicting);
+        }
+
+        private Task timingOf(int id, Task task) {
+            return new Task(id, task.getName(), null, null, task.getDuration(), task.getStartTime());
+        }
+
+        private void plan(Task timing) {
+            if (timing.getStartTime() != null && timing.getDuration() != null) {
+                planned.put(timing.getId(), timing);
+                schedule.add(timing);
+            }
+        }
+
+        private void unplan(int id) {
+            Task timing = planned.remove(id);
+            if (timing != null) schedule.remove(timing);
+        }
+
+        private void remove(int id) {
+            deleted.add(id);
+            replaced.add(id);
+            unplan(id);
         }
     }
 }
\ No newline at end of file
@@ -7,8 +7,18 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    // Потокобезопасная реализация TaskManager для многопоточного HTTP-сервера
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
     // Метод для получения реализации HistoryManager
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // История, своя у каждого клиента HTTP-сервера (заголовок X-Client-Id)
+    public static HistoryManager getSessionHistory() {
+        return new SessionHistoryManager();
+    }
 }
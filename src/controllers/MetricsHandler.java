@@ -0,0 +1,29 @@
+package controllers;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+public class MetricsHandler extends BaseHttpHandler {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpMetrics metrics;
+
+    public MetricsHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics) {
+        super(taskManager, gson, metrics);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange) throws IOException {
+        try {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                sendText(exchange, metrics.toPrometheusText(), 200, CONTENT_TYPE);
+            } else {
+                sendBadRequest(exchange, "Unsupported method");
+            }
+        } catch (Exception e) {
+            sendInternalError(exchange, e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package controllers;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Контекст NioHttpServer: путь, обработчик и фильтры. Аутентификация не поддерживается
+class NioHttpContext extends HttpContext {
+    private final String path;
+    private final HttpServer server;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final List<Filter> filters = new CopyOnWriteArrayList<>();
+    private volatile HttpHandler handler;
+
+    NioHttpContext(String path, HttpServer server) {
+        this.path = path;
+        this.server = server;
+    }
+
+    @Override
+    public HttpHandler getHandler() {
+        return handler;
+    }
+
+    @Override
+    public void setHandler(HttpHandler handler) {
+        if (handler == null) throw new NullPointerException("handler");
+        if (this.handler != null) throw new IllegalArgumentException("handler already set");
+        this.handler = handler;
+    }
+
+    @Override
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public HttpServer getServer() {
+        return server;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public List<Filter> getFilters() {
+        return filters;
+    }
+
+    @Override
+    public Authenticator setAuthenticator(Authenticator authenticator) {
+        if (authenticator != null) throw new UnsupportedOperationException("authentication is not supported");
+        return null;
+    }
+
+    @Override
+    public Authenticator getAuthenticator() {
+        return null;
+    }
+}
@@ -0,0 +1,363 @@
+package controllers;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// HttpExchange поверх соединения NioHttpServer. Ответ пишется в буферы из пула
+// и уходит потоку селектора по мере заполнения, так что потоковый ответ не
+// собирается в памяти целиком
+class NioHttpExchange extends HttpExchange {
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private static volatile String date;
+    private static volatile long dateSecond;
+
+    private final NioHttpServer.Connection connection;
+    private final NioHttpServer.Request request;
+    private final HttpContext context;
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final BodyStream body = new BodyStream();
+    private InputStream requestBody;
+    private OutputStream responseBody = body;
+    private int responseCode = -1;
+    private boolean headersSent;
+    private boolean completed;
+    private ByteBuffer buffer; // заполняемый буфер ответа
+
+    NioHttpExchange(NioHttpServer.Connection connection, NioHttpServer.Request request, HttpContext context) {
+        this.connection = connection;
+        this.request = request;
+        this.context = context;
+        this.requestBody = new ByteArrayInputStream(request.body);
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return request.headers;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return request.uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return request.method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        try {
+            requestBody.close();
+            responseBody.close();
+        } catch (IOException e) {
+            // недописанный ответ оборвёт finish()
+        }
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    // Длина как у HttpServer: больше 0 — Content-Length, 0 — chunked, -1 — без тела
+    @Override
+    public void sendResponseHeaders(int code, long length) throws IOException {
+        if (headersSent) throw new IOException("headers already sent");
+        headersSent = true;
+        responseCode = code;
+
+        StringBuilder head = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(code).append(' ').append(reasonPhrase(code)).append("\r\n")
+                .append("Date: ").append(httpDate()).append("\r\n");
+        if (code == 304 || code == 204 || code < 200) {
+            length = -1;
+        } else if (length > 0) {
+            head.append("Content-Length: ").append(length).append("\r\n");
+        } else if (length == 0) {
+            head.append("Transfer-Encoding: chunked\r\n");
+        } else {
+            head.append("Content-Length: 0\r\n");
+        }
+        if (!request.keepAlive) head.append("Connection: close\r\n");
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                head.append(header.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        head.append("\r\n");
+        writeRaw(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        body.start(length, request.method.equals("HEAD"));
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return connection.getRemoteAddress();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return connection.getLocalAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return request.protocol;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void setStreams(InputStream in, OutputStream out) {
+        if (in != null) requestBody = in;
+        if (out != null) responseBody = out;
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    // Ответ без тела от самого сервера: 404 без контекста, 503 при переполненном executor
+    void sendStatus(int code) {
+        try {
+            sendResponseHeaders(code, -1);
+            complete();
+        } catch (IOException e) {
+            abort();
+        }
+    }
+
+    // Вызывается сервером после обработчика. Ответ без заголовков заменяется на 500;
+    // тело, дописанное не до конца, обрывается, а не завершается: клиент должен
+    // увидеть ошибку, а не короткий, но корректный с виду ответ
+    void finish() {
+        if (completed) return;
+        if (!headersSent) {
+            sendStatus(500);
+        } else if (body.isComplete()) {
+            try {
+                complete();
+            } catch (IOException e) {
+                abort();
+            }
+        } else {
+            abort();
+        }
+    }
+
+    private void writeRaw(byte[] bytes) throws IOException {
+        writeRaw(bytes, 0, bytes.length);
+    }
+
+    private void writeRaw(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (buffer == null) buffer = connection.acquireBuffer();
+            int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+            if (!buffer.hasRemaining()) submit();
+        }
+    }
+
+    private void submit() throws IOException {
+        ByteBuffer full = buffer;
+        buffer = null;
+        connection.send(full.flip());
+    }
+
+    private void complete() throws IOException {
+        completed = true;
+        if (buffer != null) submit();
+        connection.complete(false);
+    }
+
+    private void abort() {
+        completed = true;
+        if (buffer != null) {
+            connection.releaseBuffer(buffer);
+            buffer = null;
+        }
+        connection.complete(true);
+    }
+
+    static String reasonPhrase(int code) {
+        switch (code) {
+            case 200:
+                return "OK";
+            case 201:
+                return "Created";
+            case 204:
+                return "No Content";
+            case 304:
+                return "Not Modified";
+            case 400:
+                return "Bad Request";
+            case 404:
+                return "Not Found";
+            case 406:
+                return "Not Acceptable";
+            case 413:
+                return "Payload Too Large";
+            case 429:
+                return "Too Many Requests";
+            case 431:
+                return "Request Header Fields Too Large";
+            case 500:
+                return "Internal Server Error";
+            case 501:
+                return "Not Implemented";
+            case 503:
+                return "Service Unavailable";
+            default:
+                return "";
+        }
+    }
+
+    // Дата для заголовка Date форматируется не чаще раза в секунду
+    private static String httpDate() {
+        long second = System.currentTimeMillis() / 1000;
+        if (second != dateSecond || date == null) {
+            date = DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochSecond(second).atOffset(ZoneOffset.UTC));
+            dateSecond = second;
+        }
+        return date;
+    }
+
+    // Тело ответа: ровно Content-Length байт или chunked-кодирование; мелкие записи
+    // копятся в куски по CHUNK_SIZE, чтобы не платить заголовком куска за каждую
+    private class BodyStream extends OutputStream {
+        private long remaining;
+        private boolean chunked;
+        private boolean discard;
+        private byte[] chunk;
+        private int chunkLength;
+        private boolean closed;
+
+        void start(long length, boolean head) {
+            discard = head;
+            if (length == 0) {
+                chunked = true;
+                chunk = new byte[CHUNK_SIZE];
+            } else {
+                remaining = Math.max(length, 0);
+            }
+        }
+
+        boolean isComplete() {
+            return discard || (!chunked && remaining == 0);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (closed) throw new IOException("stream closed");
+            if (!headersSent) throw new IOException("response headers not sent");
+            if (length == 0 || discard) return;
+            if (chunked) {
+                while (length > 0) {
+                    int count = Math.min(length, chunk.length - chunkLength);
+                    System.arraycopy(bytes, offset, chunk, chunkLength, count);
+                    chunkLength += count;
+                    offset += count;
+                    length -= count;
+                    if (chunkLength == chunk.length) writeChunk();
+                }
+            } else {
+                if (length > remaining) throw new IOException("too many bytes to write to stream");
+                writeRaw(bytes, offset, length);
+                remaining -= length;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (closed || !headersSent) return;
+            if (chunked && chunkLength > 0) writeChunk();
+            if (buffer != null && buffer.position() > 0) submit();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed || !headersSent) return;
+            closed = true;
+            if (discard) {
+                complete();
+                return;
+            }
+            if (chunked) {
+                if (chunkLength > 0) writeChunk();
+                writeRaw(LAST_CHUNK);
+            } else if (!isComplete()) {
+                abort();
+                throw new IOException("insufficient bytes written to stream");
+            }
+            complete();
+        }
+
+        private void writeChunk() throws IOException {
+            writeRaw(Integer.toHexString(chunkLength).getBytes(StandardCharsets.ISO_8859_1));
+            writeRaw(CRLF);
+            writeRaw(chunk, 0, chunkLength);
+            writeRaw(CRLF);
+            chunkLength = 0;
+        }
+    }
+}
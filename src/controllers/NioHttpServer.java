@@ -0,0 +1,604 @@
+package controllers;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// HTTP/1.1 сервер на одном селекторе с API HttpServer, поэтому обработчики те же.
+// Поток селектора принимает соединения, читает и разбирает запросы и пишет ответы,
+// обработчики выполняются в executor. Соединение живёт между запросами (keep-alive);
+// запросы, присланные подряд без ожидания ответов, обрабатываются по одному в порядке
+// поступления, и ответы уходят в том же порядке. Чтение и запись идут через пул прямых
+// буферов. Тело запроса принимается только с Content-Length
+class NioHttpServer extends HttpServer {
+    static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 1024;
+    private static final int MAX_BODY_SIZE = 16 * 1024 * 1024;
+    // сколько байт ответа может ждать отправки, прежде чем обработчик остановится
+    private static final long MAX_QUEUED_BYTES = 256 * 1024;
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+    // метки в очереди записи: ответ закончен / ответ оборван и соединение закрывается
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    private static final ByteBuffer ABORT = ByteBuffer.allocate(0);
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final BufferPool pool = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private final List<NioHttpContext> contexts = new CopyOnWriteArrayList<>();
+    private final Queue<Connection> flushQueue = new ConcurrentLinkedQueue<>();
+    private volatile Executor executor;
+    private volatile Thread selectorThread;
+    private volatile boolean stopping;
+    private volatile long stopDeadline;
+    // дальше — только поток селектора
+    private int inFlight;
+    private long lastIdleCheck;
+
+    private NioHttpServer() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+    }
+
+    static NioHttpServer open(InetSocketAddress address, int backlog) throws IOException {
+        NioHttpServer server = new NioHttpServer();
+        if (address != null) server.bind(address, backlog);
+        return server;
+    }
+
+    @Override
+    public void bind(InetSocketAddress address, int backlog) throws IOException {
+        serverChannel.bind(address, backlog);
+    }
+
+    @Override
+    public void start() {
+        if (selectorThread != null) throw new IllegalStateException("server already started");
+        try {
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        selectorThread = new Thread(this::run, "nio-http-selector");
+        selectorThread.start();
+    }
+
+    // Без executor обработчики выполняются прямо в потоке селектора
+    @Override
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    // Сразу перестаёт принимать соединения и до delay секунд ждёт начатые обмены
+    @Override
+    public void stop(int delay) {
+        if (delay < 0) throw new IllegalArgumentException("negative delay");
+        stopDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(delay);
+        stopping = true;
+        Thread thread = selectorThread;
+        if (thread == null) {
+            closeAll();
+            return;
+        }
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public HttpContext createContext(String path, HttpHandler handler) {
+        HttpContext context = createContext(path);
+        context.setHandler(handler);
+        return context;
+    }
+
+    @Override
+    public synchronized HttpContext createContext(String path) {
+        if (path == null || !path.startsWith("/")) throw new IllegalArgumentException("Invalid context path: " + path);
+        for (NioHttpContext context : contexts) {
+            if (context.getPath().equals(path)) throw new IllegalArgumentException("Context already exists: " + path);
+        }
+        NioHttpContext context = new NioHttpContext(path, this);
+        contexts.add(context);
+        return context;
+    }
+
+    @Override
+    public synchronized void removeContext(String path) {
+        if (!contexts.removeIf(context -> context.getPath().equals(path))) {
+            throw new IllegalArgumentException("No context with path: " + path);
+        }
+    }
+
+    @Override
+    public synchronized void removeContext(HttpContext context) {
+        contexts.remove(context);
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void run() {
+        try {
+            while (!stopping || (inFlight > 0 && System.nanoTime() < stopDeadline)) {
+                if (stopping && serverChannel.isOpen()) serverChannel.close();
+                selector.select(this::onSelected, stopping ? 10 : 1000);
+                Connection connection;
+                while ((connection = flushQueue.poll()) != null) {
+                    connection.flush();
+                }
+                closeIdle();
+            }
+        } catch (IOException e) {
+            // селектор неисправен — дальше работать нельзя, соединения закрываются ниже
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void onSelected(SelectionKey key) {
+        if (!key.isValid()) return;
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        if (key.isWritable()) connection.flush();
+        if (key.isValid() && key.isReadable()) connection.read();
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection connection = new Connection(channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            }
+        } catch (IOException e) {
+            // например, кончились дескрипторы: соединение останется в очереди до следующей попытки
+        }
+    }
+
+    private void closeIdle() {
+        long now = System.nanoTime();
+        if (now - lastIdleCheck < TimeUnit.SECONDS.toNanos(1)) return;
+        lastIdleCheck = now;
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection && connection.isIdle(now)) {
+                connection.close();
+            }
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection) connection.close();
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            // сервер уже остановлен, сообщать некому
+        }
+    }
+
+    // Как у HttpServer: контекст с самым длинным путём, который является префиксом пути запроса
+    private NioHttpContext findContext(String path) {
+        NioHttpContext best = null;
+        if (path == null) return null;
+        for (NioHttpContext context : contexts) {
+            if (path.startsWith(context.getPath())
+                    && (best == null || context.getPath().length() > best.getPath().length())) {
+                best = context;
+            }
+        }
+        return best;
+    }
+
+    private void handle(NioHttpExchange exchange) {
+        try {
+            HttpContext context = exchange.getHttpContext();
+            new Filter.Chain(context.getFilters(), context.getHandler()).doFilter(exchange);
+        } catch (Exception e) {
+            // как и в HttpServer, недописанный ответ обрывается закрытием соединения
+        } finally {
+            exchange.finish();
+        }
+    }
+
+    // Разобранная строка запроса и заголовки; тело дочитывается в body
+    static class Request {
+        final String method;
+        final URI uri;
+        final String protocol;
+        final Headers headers;
+        final boolean keepAlive;
+        final long contentLength;
+        final boolean chunked;
+        byte[] body;
+        int filled;
+
+        private Request(String method, URI uri, String protocol, Headers headers) {
+            this.method = method;
+            this.uri = uri;
+            this.protocol = protocol;
+            this.headers = headers;
+            String connection = headers.getFirst("Connection");
+            this.keepAlive = protocol.equals("HTTP/1.1")
+                    ? !"close".equalsIgnoreCase(connection)
+                    : "keep-alive".equalsIgnoreCase(connection);
+            String length = headers.getFirst("Content-Length");
+            this.contentLength = length == null ? 0 : Long.parseLong(length.trim());
+            if (contentLength < 0) throw new IllegalArgumentException("negative Content-Length");
+            this.chunked = headers.containsKey("Transfer-Encoding");
+        }
+
+        // IllegalArgumentException — запрос не разобрать
+        static Request parse(String head) {
+            String[] lines = head.split("\r\n");
+            int first = 0;
+            while (first < lines.length && lines[first].isEmpty()) {
+                first++; // пустые строки перед запросом допускаются
+            }
+            if (first == lines.length) throw new IllegalArgumentException("empty request");
+            String[] requestLine = lines[first].split(" ");
+            if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+                throw new IllegalArgumentException("bad request line");
+            }
+            Headers headers = new Headers();
+            for (int i = first + 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon <= 0) throw new IllegalArgumentException("bad header line");
+                headers.add(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+            }
+            return new Request(requestLine[0], URI.create(requestLine[1]), requestLine[2], headers);
+        }
+    }
+
+    // Состояние соединения принадлежит потоку селектора. Потоки обработчиков только
+    // кладут готовые буферы ответа в outbox и ждут, если клиент не успевает их забирать
+    class Connection {
+        private final SocketChannel channel;
+        private final InetSocketAddress remoteAddress;
+        private final InetSocketAddress localAddress;
+        private SelectionKey key;
+        private ByteBuffer in;          // принятые, ещё не разобранные байты; null, пока их нет
+        private int headerScan;         // до какого места уже искали конец заголовков
+        private Request pending;        // запрос, тело которого ещё не дочитано
+        private NioHttpExchange current;
+        private boolean closeAfterResponse;
+        private long lastActive = System.nanoTime();
+        private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();
+        private final ByteBuffer[] gather = new ByteBuffer[16];
+
+        private final Queue<ByteBuffer> outbox = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition drained = lock.newCondition();
+        private long queuedBytes;       // под lock
+        private volatile boolean closed;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+            this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+        }
+
+        InetSocketAddress getRemoteAddress() {
+            return remoteAddress;
+        }
+
+        InetSocketAddress getLocalAddress() {
+            return localAddress;
+        }
+
+        ByteBuffer acquireBuffer() {
+            return pool.acquire();
+        }
+
+        void releaseBuffer(ByteBuffer buffer) {
+            pool.release(buffer);
+        }
+
+        // Передаёт заполненный буфер на запись. Обработчик ждёт, пока в очереди не станет
+        // меньше MAX_QUEUED_BYTES: медленный клиент не раздувает память сервера.
+        // Поток селектора не ждёт — иначе некому было бы писать
+        void send(ByteBuffer buffer) throws IOException {
+            if (closed) {
+                pool.release(buffer);
+                throw new IOException("Connection closed");
+            }
+            enqueue(buffer);
+            if (Thread.currentThread() == selectorThread) return;
+            lock.lock();
+            try {
+                while (queuedBytes > MAX_QUEUED_BYTES && !closed) {
+                    drained.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (closed) throw new IOException("Connection closed");
+        }
+
+        void complete(boolean abort) {
+            enqueue(abort ? ABORT : END);
+        }
+
+        private void enqueue(ByteBuffer buffer) {
+            lock.lock();
+            try {
+                queuedBytes += buffer.remaining();
+            } finally {
+                lock.unlock();
+            }
+            outbox.offer(buffer);
+            flushQueue.offer(this);
+            if (Thread.currentThread() != selectorThread) selector.wakeup();
+        }
+
+        void read() {
+            if (in == null) in = pool.acquire();
+            try {
+                if (channel.read(in) < 0) {
+                    close();
+                    return;
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            lastActive = System.nanoTime();
+            process();
+        }
+
+        // Разбирает принятые байты, пока очередной запрос не уйдёт в работу
+        private void process() {
+            while (current == null && !closeAfterResponse && parseNext()) {
+                // следующий запрос конвейера
+            }
+            if (in != null && in.position() == 0) {
+                pool.release(in);
+                in = null;
+            }
+            updateInterest();
+        }
+
+        // true, если запрос разобран и отправлен обработчику
+        private boolean parseNext() {
+            if (in == null) return false;
+            if (pending == null) {
+                int end = findHeaderEnd();
+                if (end < 0) {
+                    if (!in.hasRemaining()) reject(431);
+                    return false;
+                }
+                byte[] head = new byte[end];
+                in.get(0, head);
+                consume(end + 4);
+                try {
+                    pending = Request.parse(new String(head, StandardCharsets.ISO_8859_1));
+                } catch (IllegalArgumentException e) {
+                    reject(400);
+                    return false;
+                }
+                if (pending.chunked) {
+                    reject(501);
+                    return false;
+                }
+                if (pending.contentLength > MAX_BODY_SIZE) {
+                    reject(413);
+                    return false;
+                }
+                pending.body = new byte[(int) pending.contentLength];
+            }
+            int available = Math.min(in.position(), pending.body.length - pending.filled);
+            in.get(0, pending.body, pending.filled, available);
+            pending.filled += available;
+            consume(available);
+            if (pending.filled < pending.body.length) return false;
+
+            Request request = pending;
+            pending = null;
+            dispatch(request);
+            return true;
+        }
+
+        private int findHeaderEnd() {
+            int limit = in.position();
+            for (int i = Math.max(headerScan - 3, 0); i + 3 < limit; i++) {
+                if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r' && in.get(i + 3) == '\n') {
+                    return i;
+                }
+            }
+            headerScan = limit;
+            return -1;
+        }
+
+        private void consume(int count) {
+            in.flip().position(count);
+            in.compact();
+            headerScan = 0;
+        }
+
+        private void dispatch(Request request) {
+            NioHttpContext context = findContext(request.uri.getPath());
+            NioHttpExchange exchange = new NioHttpExchange(this, request, context);
+            current = exchange;
+            inFlight++;
+            closeAfterResponse = !request.keepAlive;
+            if (context == null || context.getHandler() == null) {
+                exchange.sendStatus(404);
+                return;
+            }
+            Executor executor = NioHttpServer.this.executor;
+            if (executor == null) {
+                handle(exchange);
+                return;
+            }
+            try {
+                executor.execute(() -> handle(exchange));
+            } catch (RejectedExecutionException e) {
+                exchange.sendStatus(503);
+            }
+        }
+
+        // Ошибка разбора: короткий ответ и закрытие соединения
+        private void reject(int code) {
+            pending = null;
+            closeAfterResponse = true;
+            byte[] response = ("HTTP/1.1 " + code + " " + NioHttpExchange.reasonPhrase(code)
+                    + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            enqueue(pool.acquire().put(response).flip());
+            enqueue(ABORT);
+        }
+
+        void flush() {
+            if (closed) return;
+            ByteBuffer next;
+            while ((next = outbox.poll()) != null) {
+                writing.add(next);
+            }
+            try {
+                while (!writing.isEmpty()) {
+                    ByteBuffer head = writing.peek();
+                    if (head == END || head == ABORT) {
+                        writing.poll();
+                        if (!finishExchange(head == END)) return;
+                        continue;
+                    }
+                    int count = 0;
+                    for (ByteBuffer buffer : writing) {
+                        if (buffer == END || buffer == ABORT || count == gather.length) break;
+                        gather[count++] = buffer;
+                    }
+                    channel.write(gather, 0, count);
+                    Arrays.fill(gather, 0, count, null);
+                    if (!releaseWritten()) break; // сокет заполнен, допишем по OP_WRITE
+                }
+                updateInterest();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        // Возвращает записанные целиком буферы в пул; false, если первый буфер записан не до конца
+        private boolean releaseWritten() {
+            long released = 0;
+            ByteBuffer head;
+            while ((head = writing.peek()) != null && head != END && head != ABORT && !head.hasRemaining()) {
+                writing.poll();
+                released += head.limit();
+                pool.release(head);
+            }
+            lock.lock();
+            try {
+                queuedBytes -= released;
+                if (queuedBytes <= MAX_QUEUED_BYTES) drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            return head == null || head == END || head == ABORT;
+        }
+
+        // Ответ отправлен: переходим к следующему запросу конвейера или закрываем соединение
+        private boolean finishExchange(boolean complete) {
+            if (current != null) {
+                current = null;
+                inFlight--;
+            }
+            lastActive = System.nanoTime();
+            if (!complete || closeAfterResponse) {
+                close();
+                return false;
+            }
+            process();
+            return true;
+        }
+
+        private void updateInterest() {
+            if (closed || !key.isValid()) return;
+            int ops = 0;
+            if (current == null && !closeAfterResponse) ops |= SelectionKey.OP_READ;
+            if (!writing.isEmpty()) ops |= SelectionKey.OP_WRITE;
+            key.interestOps(ops);
+        }
+
+        boolean isIdle(long now) {
+            return current == null && writing.isEmpty() && now - lastActive > IDLE_TIMEOUT_NANOS;
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            if (key != null) key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // соединение и так закрывается
+            }
+            if (in != null) {
+                pool.release(in);
+                in = null;
+            }
+            ByteBuffer buffer;
+            while ((buffer = outbox.poll()) != null) {
+                writing.add(buffer);
+            }
+            for (ByteBuffer pendingBuffer : writing) {
+                if (pendingBuffer != END && pendingBuffer != ABORT) pool.release(pendingBuffer);
+            }
+            writing.clear();
+            if (current != null) {
+                current = null;
+                inFlight--;
+            }
+            lock.lock();
+            try {
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package controllers;
+
+import java.util.List;
+
+// Страница выборки; nextCursor равен null, если дальше записей нет
+public class Page<T> {
+    private final List<T> items;
+    private final Integer nextCursor;
+
+    public Page(List<T> items, Integer nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+}
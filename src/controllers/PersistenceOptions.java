@@ -0,0 +1,111 @@
+package controllers;
+
+import java.time.Duration;
+
+// Настройки сохранения FileBackedTaskManager
+public class PersistenceOptions {
+    private StorageMode storageMode = StorageMode.SNAPSHOT;
+    private SnapshotFormat snapshotFormat = SnapshotFormat.CSV;
+    private Durability durability = Durability.SYNC;
+    private Duration flushInterval = Duration.ofMillis(20);
+    private int batchSize = 512;
+    private Duration compactionInterval = Duration.ofMinutes(1);
+    private long compactionThreshold = 4 * 1024 * 1024;
+    private boolean persistHistory = false;
+    private int historyCompactionThreshold = 10_000;
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    public PersistenceOptions storageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+        return this;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    // Формат, в котором пишутся снимки; при загрузке формат определяется по содержимому файла
+    public PersistenceOptions snapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+        return this;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public PersistenceOptions durability(Durability durability) {
+        this.durability = durability;
+        return this;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    // Максимальная задержка записи накопленных изменений в режимах GROUP_COMMIT и ASYNC
+    public PersistenceOptions flushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    // Количество изменений, при котором пачка пишется не дожидаясь flushInterval
+    public PersistenceOptions batchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public Duration getCompactionInterval() {
+        return compactionInterval;
+    }
+
+    // Как часто в режиме JOURNAL проверяется размер журнала; null отключает фоновое сжатие
+    public PersistenceOptions compactionInterval(Duration compactionInterval) {
+        this.compactionInterval = compactionInterval;
+        return this;
+    }
+
+    public long getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    // Размер журнала в байтах, после которого он сворачивается в новый снимок
+    public PersistenceOptions compactionThreshold(long compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+        return this;
+    }
+
+    public boolean isPersistHistory() {
+        return persistHistory;
+    }
+
+    // Сохранять ли историю просмотров между перезапусками. Выключено по умолчанию: история
+    // пишется в отдельный файл <file>.history, а первый просмотр запускает фоновый поток
+    // записи, который останавливает только close()
+    public PersistenceOptions persistHistory(boolean persistHistory) {
+        this.persistHistory = persistHistory;
+        return this;
+    }
+
+    public int getHistoryCompactionThreshold() {
+        return historyCompactionThreshold;
+    }
+
+    // Через сколько дописанных просмотров журнал истории переписывается текущей историей
+    public PersistenceOptions historyCompactionThreshold(int historyCompactionThreshold) {
+        if (historyCompactionThreshold < 1) {
+            throw new IllegalArgumentException("History compaction threshold must be positive: "
+                    + historyCompactionThreshold);
+        }
+        this.historyCompactionThreshold = historyCompactionThreshold;
+        return this;
+    }
+}
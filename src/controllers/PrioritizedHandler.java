@@ -3,17 +3,18 @@ package controllers;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import model.Task;
+import model.TaskType;
 import java.io.IOException;
 import java.util.List;
 
 public class PrioritizedHandler extends BaseHttpHandler {
 
-    public PrioritizedHandler(TaskManager taskManager, Gson gson) {
-        super(taskManager, gson);
+    public PrioritizedHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics) {
+        super(taskManager, gson, metrics);
     }
 
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
+    protected void handleRequest(HttpExchange exchange) throws IOException {
         try {
             if ("GET".equals(exchange.getRequestMethod())) {
                 handleGetPrioritized(exchange);
@@ -21,13 +22,15 @@ public class PrioritizedHandler extends BaseHttpHandler {
                 sendBadRequest(exchange, "Unsupported method");
             }
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
     private void handleGetPrioritized(HttpExchange exchange) throws IOException {
+        // эпики в расписание не входят
+        long version = versionOf(TaskType.TASK, TaskType.SUBTASK);
+        if (checkNotModified(exchange, version)) return;
         List<Task> prioritized = taskManager.getPrioritizedTasks();
-        String response = gson.toJson(prioritized);
-        sendSuccess(exchange, response);
+        sendJsonArray(exchange, prioritized);
     }
 }
\ No newline at end of file
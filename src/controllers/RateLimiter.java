@@ -0,0 +1,62 @@
+package controllers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Токен-бакеты по клиентам: в среднем rate запросов в секунду, всплеском до burst.
+// Бакет хранит одно число — момент, когда он снова станет полным (алгоритм GCRA),
+// поэтому пополнение не требует таймера, а списание — один CAS
+class RateLimiter {
+    // Сколько бакетов держать, прежде чем удалять полные досрочно: полный бакет ничем не
+    // отличается от нового, поэтому удаление не даёт клиенту лишних запросов
+    private static final int SWEEP_THRESHOLD = 10_000;
+    private static final long MIN_SWEEP_PERIOD = 1_000_000_000L;
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final long interval;
+    private final long tolerance;
+    private final long sweepPeriod;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    // Простаивающие бакеты удаляются раз в sweepPeriod: за это время любой бакет успевает
+    // наполниться, так что карта держит только клиентов, активных в последнем периоде
+    private final AtomicLong nextSweep = new AtomicLong(NOT_STARTED);
+
+    RateLimiter(double rate, int burst) {
+        if (rate <= 0) throw new IllegalArgumentException("rate must be positive");
+        if (burst < 1) throw new IllegalArgumentException("burst must be positive");
+        this.interval = (long) (1_000_000_000L / rate);
+        this.tolerance = interval * (burst - 1);
+        this.sweepPeriod = Math.max(MIN_SWEEP_PERIOD, tolerance + interval);
+    }
+
+    // 0, если запрос пропущен, иначе через сколько наносекунд появится токен
+    long tryAcquire(String client, long now) {
+        long due = nextSweep.get();
+        if (due == NOT_STARTED) {
+            nextSweep.compareAndSet(NOT_STARTED, now + sweepPeriod);
+        } else if (now - due >= 0 && nextSweep.compareAndSet(due, now + sweepPeriod)) {
+            sweep(now);
+        }
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= SWEEP_THRESHOLD) sweep(now);
+            bucket = buckets.computeIfAbsent(client, c -> new AtomicLong(Long.MIN_VALUE));
+        }
+        while (true) {
+            long full = bucket.get();
+            long start = full == Long.MIN_VALUE ? now : Math.max(full, now);
+            long wait = start - tolerance - now;
+            if (wait > 0) return wait;
+            if (bucket.compareAndSet(full, start + interval)) return 0;
+        }
+    }
+
+    private void sweep(long now) {
+        buckets.values().removeIf(bucket -> bucket.get() <= now);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,135 @@
+package controllers;
+
+import java.util.Set;
+
+// Настройки HttpTaskServer
+public class ServerOptions {
+    private int port = 8080;
+    private int backlog = 0;
+    private ExecutionModel executionModel = ExecutionModel.VIRTUAL_THREADS;
+    private int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+    private int queueCapacity = 1024;
+    private Transport transport = Transport.JDK_HTTP_SERVER;
+    private int maxReadsInFlight = 512;
+    private int maxWritesInFlight = 64;
+    private double clientRate = 0;
+    private int clientBurst = 50;
+    private Set<String> trustedProxies = Set.of();
+
+    public int getPort() {
+        return port;
+    }
+
+    public ServerOptions port(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    // Длина очереди ещё не принятых соединений; 0 — значение системы по умолчанию
+    public ServerOptions backlog(int backlog) {
+        if (backlog < 0) throw new IllegalArgumentException("backlog must not be negative");
+        this.backlog = backlog;
+        return this;
+    }
+
+    public ExecutionModel getExecutionModel() {
+        return executionModel;
+    }
+
+    public ServerOptions executionModel(ExecutionModel executionModel) {
+        this.executionModel = executionModel;
+        return this;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    // Число потоков для PLATFORM_POOL
+    public ServerOptions poolSize(int poolSize) {
+        if (poolSize < 1) throw new IllegalArgumentException("poolSize must be positive");
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    // Сколько запросов PLATFORM_POOL держит в очереди, когда все потоки заняты.
+    // Если очередь полна, запрос сразу получает 503 с Retry-After
+    public ServerOptions queueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity must be positive");
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public ServerOptions transport(Transport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    public int getMaxReadsInFlight() {
+        return maxReadsInFlight;
+    }
+
+    // Сколько GET и HEAD обрабатывается одновременно; сверх этого — сразу 429
+    public ServerOptions maxReadsInFlight(int maxReadsInFlight) {
+        if (maxReadsInFlight < 1) throw new IllegalArgumentException("maxReadsInFlight must be positive");
+        this.maxReadsInFlight = maxReadsInFlight;
+        return this;
+    }
+
+    public int getMaxWritesInFlight() {
+        return maxWritesInFlight;
+    }
+
+    // То же для остальных методов. Записи упираются в блокировку менеджера и диск,
+    // поэтому предел у них меньше
+    public ServerOptions maxWritesInFlight(int maxWritesInFlight) {
+        if (maxWritesInFlight < 1) throw new IllegalArgumentException("maxWritesInFlight must be positive");
+        this.maxWritesInFlight = maxWritesInFlight;
+        return this;
+    }
+
+    public double getClientRate() {
+        return clientRate;
+    }
+
+    // Средний допустимый темп запросов одного клиента в секунду; 0 — без ограничения
+    public ServerOptions clientRate(double clientRate) {
+        if (clientRate < 0) throw new IllegalArgumentException("clientRate must not be negative");
+        this.clientRate = clientRate;
+        return this;
+    }
+
+    public int getClientBurst() {
+        return clientBurst;
+    }
+
+    // Сколько запросов клиент может прислать подряд сверх среднего темпа
+    public ServerOptions clientBurst(int clientBurst) {
+        if (clientBurst < 1) throw new IllegalArgumentException("clientBurst must be positive");
+        this.clientBurst = clientBurst;
+        return this;
+    }
+
+    public Set<String> getTrustedProxies() {
+        return trustedProxies;
+    }
+
+    // Адреса, которым разрешено назвать клиента заголовком X-Client-Id (например, обратный
+    // прокси). Для остальных подключений клиент — их адрес, а заголовок лимит не меняет
+    public ServerOptions trustedProxies(String... addresses) {
+        this.trustedProxies = Set.of(addresses);
+        return this;
+    }
+}
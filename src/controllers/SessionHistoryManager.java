@@ -0,0 +1,261 @@
+package controllers;
+
+import model.Task;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// История просмотров, своя у каждого клиента. Клиент берётся из текущего потока
+// (setCurrentClient, его выставляет BaseHttpHandler по заголовку X-Client-Id); без него,
+// в том числе при вызове не из обработчика HTTP, используется общая сессия. Поэтому
+// историю нельзя оборачивать в AsyncHistoryManager: его потребитель клиента не знает.
+// Обёртка и не нужна: поиск сессии — ConcurrentHashMap.get, а каждая сессия
+// блокируется отдельно, поэтому разные клиенты друг друга не ждут.
+//
+// Память ограничена трижды: история сессии — sessionCapacity задач, сессия без
+// обращений дольше idleTimeout удаляется, а при превышении maxSessions или maxBytes
+// вытесняются давно не активные сессии.
+//
+// Удаление задачи не обходит все сессии: оно дописывается в общий список удалений,
+// и каждая сессия применяет новые записи при следующем обращении. Начало списка не
+// хранится, поэтому записи, которые применили все сессии, забирает сборщик мусора.
+// Чтобы одни удаления без просмотров не копили список, каждые REMOVAL_SWEEP_INTERVAL
+// записей их применяют все сессии сразу, а истёкшие при этом закрываются
+public class SessionHistoryManager implements HistoryManager {
+    public static final int DEFAULT_SESSION_CAPACITY = 100;
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    // Идентификаторы длиннее считаются отсутствующими, чтобы ключи не съедали память
+    static final int MAX_CLIENT_ID_LENGTH = 128;
+    static final int REMOVAL_SWEEP_INTERVAL = 1024;
+    private static final String SHARED_SESSION = "";
+    // Сессия, её запись в ConcurrentHashMap и пустая история без учёта строки ключа
+    private static final int SESSION_OVERHEAD = 256;
+
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final int sessionCapacity;
+    private final int maxSessions;
+    private final long maxBytes;
+    private final long idleTimeoutNanos;
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Object removalLock = new Object();
+    private volatile Removal lastRemoval = new Removal(0);
+    private int removalsSinceSweep; // под removalLock
+
+    private static final class Removal {
+        final int id;
+        volatile Removal next;
+
+        Removal(int id) {
+            this.id = id;
+        }
+    }
+
+    private final class Session {
+        final String client;
+        final InMemoryHistoryManager history = new InMemoryHistoryManager(sessionCapacity);
+        Removal applied;
+        long version;
+        long bytes;
+        boolean closed;
+        volatile long lastAccess;
+
+        Session(String client, long now) {
+            this.client = client;
+            this.applied = lastRemoval;
+            this.lastAccess = now;
+        }
+
+        // Применяет удаления, пришедшие после прошлого обращения; вызывается под блокировкой сессии
+        void catchUp() {
+            long before = history.getVersion();
+            for (Removal removal = applied.next; removal != null; removal = removal.next) {
+                history.remove(removal.id);
+                applied = removal;
+            }
+            if (history.getVersion() != before) changed();
+        }
+
+        void changed() {
+            version = versions.incrementAndGet();
+            long size = SESSION_OVERHEAD + 2L * client.length() + history.getBytes();
+            SessionHistoryManager.this.bytes.addAndGet(size - bytes);
+            bytes = size;
+        }
+    }
+
+    public SessionHistoryManager() {
+        this(DEFAULT_SESSION_CAPACITY, DEFAULT_MAX_SESSIONS, DEFAULT_MAX_BYTES, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public SessionHistoryManager(int sessionCapacity, int maxSessions, long maxBytes, Duration idleTimeout) {
+        if (sessionCapacity < 1) throw new IllegalArgumentException("sessionCapacity must be positive");
+        if (maxSessions < 1) throw new IllegalArgumentException("maxSessions must be positive");
+        if (maxBytes < 1) throw new IllegalArgumentException("maxBytes must be positive");
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+        this.sessionCapacity = sessionCapacity;
+        this.maxSessions = maxSessions;
+        this.maxBytes = maxBytes;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    // null — общая сессия; вызывающий обязан сбросить клиента по окончании запроса
+    public static void setCurrentClient(String client) {
+        if (client == null || client.isBlank() || client.length() > MAX_CLIENT_ID_LENGTH) {
+            CURRENT_CLIENT.remove();
+        } else {
+            CURRENT_CLIENT.set(client);
+        }
+    }
+
+    private static String currentClient() {
+        String client = CURRENT_CLIENT.get();
+        return client != null ? client : SHARED_SESSION;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) return;
+        Task snapshot = task.snapshot();
+        long now = System.nanoTime();
+        String client = currentClient();
+        while (true) {
+            Session session = sessions.get(client);
+            if (session == null) session = sessions.computeIfAbsent(client, c -> new Session(c, now));
+            synchronized (session) {
+                if (session.closed) continue;
+                session.lastAccess = now;
+                session.catchUp();
+                session.history.add(snapshot);
+                session.changed();
+            }
+            break;
+        }
+        enforceLimits(now);
+    }
+
+    @Override
+    public void remove(int id) {
+        boolean sweepDue;
+        synchronized (removalLock) {
+            Removal removal = new Removal(id);
+            lastRemoval.next = removal;
+            lastRemoval = removal;
+            sweepDue = ++removalsSinceSweep >= REMOVAL_SWEEP_INTERVAL;
+            if (sweepDue) removalsSinceSweep = 0;
+        }
+        if (sweepDue) applyRemovals(System.nanoTime());
+    }
+
+    // Чтение не создаёт сессию: у клиента без просмотров история пуста
+    @Override
+    public List<Task> getHistory() {
+        Session session = sessions.get(currentClient());
+        if (session == null) return List.of();
+        synchronized (session) {
+            if (session.closed) return List.of();
+            session.lastAccess = System.nanoTime();
+            session.catchUp();
+            return session.history.getHistory();
+        }
+    }
+
+    // Версии уникальны среди всех сессий, поэтому ETag одного клиента не совпадёт с чужим
+    @Override
+    public long getVersion() {
+        Session session = sessions.get(currentClient());
+        if (session == null) return 0;
+        synchronized (session) {
+            if (session.closed) return 0;
+            session.catchUp();
+            return session.version;
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    // Оценка памяти под все сессии в байтах
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    // Проверки дешёвые и выполняются после каждого просмотра; обход сессий — не чаще
+    // раза в четверть idleTimeout или при превышении лимитов, и только одним потоком
+    private void enforceLimits(long now) {
+        long sweptAt = lastSweep.get();
+        boolean sweepDue = now - sweptAt >= idleTimeoutNanos / 4 && lastSweep.compareAndSet(sweptAt, now);
+        boolean overLimit = sessions.size() > maxSessions || bytes.get() > maxBytes;
+        if (!sweepDue && !overLimit) return;
+        if (!evictionLock.tryLock()) return;
+        try {
+            if (sweepDue) {
+                for (Session session : sessions.values()) {
+                    if (now - session.lastAccess > idleTimeoutNanos) close(session);
+                }
+            }
+            if (sessions.size() > maxSessions || bytes.get() > maxBytes) evictLeastRecent();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Сессии применяют накопленные удаления и отпускают начало списка; истёкшие закрываются.
+    // Это работа, которую сессия всё равно сделала бы при следующем обращении. Если обход
+    // уже идёт, он пропускается: следующий случится через REMOVAL_SWEEP_INTERVAL удалений
+    private void applyRemovals(long now) {
+        if (!evictionLock.tryLock()) return;
+        try {
+            for (Session session : sessions.values()) {
+                if (now - session.lastAccess > idleTimeoutNanos) {
+                    close(session);
+                    continue;
+                }
+                synchronized (session) {
+                    if (!session.closed) session.catchUp();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Вытесняет до 90% лимитов, чтобы следующий же просмотр не запускал обход снова
+    private void evictLeastRecent() {
+        // время обращения снимается до сортировки: оно меняется, пока список сортируется
+        List<Map.Entry<Session, Long>> byAccess = new ArrayList<>(sessions.size());
+        for (Session session : sessions.values()) {
+            byAccess.add(Map.entry(session, session.lastAccess));
+        }
+        byAccess.sort(Map.Entry.comparingByValue());
+        int targetSessions = Math.max(1, maxSessions - maxSessions / 10);
+        long targetBytes = maxBytes - maxBytes / 10;
+        for (Map.Entry<Session, Long> entry : byAccess) {
+            if (sessions.size() <= targetSessions && bytes.get() <= targetBytes) break;
+            close(entry.getKey());
+        }
+    }
+
+    private void close(Session session) {
+        synchronized (session) {
+            if (session.closed) return;
+            session.closed = true;
+            bytes.addAndGet(-session.bytes);
+        }
+        sessions.remove(session.client, session);
+    }
+}
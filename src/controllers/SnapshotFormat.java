@@ -0,0 +1,7 @@
+package controllers;
+
+// Формат файла снимка FileBackedTaskManager
+public enum SnapshotFormat {
+    CSV,   // текстовый, удобен для просмотра и экспорта
+    BINARY // компактный, быстро загружается без разбора строк и дат
+}
@@ -0,0 +1,7 @@
+package controllers;
+
+// Способ сохранения изменений FileBackedTaskManager
+public enum StorageMode {
+    SNAPSHOT, // каждое изменение переписывает весь CSV-файл
+    JOURNAL   // каждое изменение дописывает одну запись в журнал рядом со снимком
+}
@@ -4,18 +4,21 @@ import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import model.Subtask;
+import model.TaskType;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class SubtasksHandler extends BaseHttpHandler {
 
-    public SubtasksHandler(TaskManager taskManager, Gson gson) {
-        super(taskManager, gson);
+    public SubtasksHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics) {
+        super(taskManager, gson, metrics);
     }
 
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
+    protected void handleRequest(HttpExchange exchange) throws IOException {
         try {
             String method = exchange.getRequestMethod();
             String path = exchange.getRequestURI().getPath();
@@ -42,14 +45,31 @@ public class SubtasksHandler extends BaseHttpHandler {
                     sendBadRequest(exchange, "Unsupported method");
             }
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
     private void handleGetAllSubtasks(HttpExchange exchange) throws IOException {
-        List<Subtask> subtasks = taskManager.getAllSubtasks();
-        String response = gson.toJson(subtasks);
-        sendSuccess(exchange, response);
+        long version = versionOf(TaskType.SUBTASK);
+        Map<String, String> params = parseQuery(exchange);
+        TaskQuery query = null;
+        if (!params.isEmpty()) {
+            try {
+                query = parseTaskQuery(params);
+                query.types(EnumSet.of(TaskType.SUBTASK));
+            } catch (IllegalArgumentException e) {
+                sendBadRequest(exchange, "Invalid query parameters");
+                return;
+            }
+        }
+        if (checkNotModified(exchange, version)) return;
+
+        if (query == null) {
+            List<Subtask> subtasks = taskManager.getAllSubtasks();
+            sendJsonArray(exchange, subtasks);
+        } else {
+            sendPage(exchange, taskManager.findTasks(query));
+        }
     }
 
     private void handleGetSubtaskById(HttpExchange exchange) throws IOException {
@@ -60,15 +80,16 @@ public class SubtasksHandler extends BaseHttpHandler {
         }
 
         try {
+            long version = taskManager.getEntityVersion(idOpt.get());
             Subtask subtask = taskManager.getSubtaskById(idOpt.get());
             if (subtask == null) {
                 sendNotFound(exchange);
-            } else {
+            } else if (!checkNotModified(exchange, version)) {
                 String response = gson.toJson(subtask);
                 sendSuccess(exchange, response);
             }
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
@@ -93,7 +114,7 @@ public class SubtasksHandler extends BaseHttpHandler {
                 sendHasInteractions(exchange);
             }
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
@@ -113,7 +134,7 @@ public class SubtasksHandler extends BaseHttpHandler {
             taskManager.deleteSubtaskById(idOpt.get());
             sendSuccess(exchange, "{\"message\": \"Subtask deleted\"}");
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 }
\ No newline at end of file
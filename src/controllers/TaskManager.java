@@ -3,6 +3,7 @@ package controllers;
 import model.Epic;
 import model.Subtask;
 import model.Task;
+import model.TaskType;
 
 import java.util.List;
 
@@ -12,6 +13,9 @@ public interface TaskManager {
 
     void deleteAllTasks();
 
+    // get*ById добавляют задачу в историю и возвращают её неизменяемый снимок: сеттеры
+    // снимка бросают UnsupportedOperationException. Чтобы изменить задачу, возьмите copy()
+    // снимка, поменяйте её и передайте в update*
     Task getTaskById(int id);
 
     int createTask(Task task);
@@ -55,4 +59,23 @@ public interface TaskManager {
 
     // НОВЫЙ метод — список задач по приоритету (startTime)
     List<Task> getPrioritizedTasks();
-}
\ No newline at end of file
+
+    // Страница задач по возрастанию id с фильтрами по типу, статусу и времени начала
+    Page<Task> findTasks(TaskQuery query);
+
+    // Версии для ETag: растут при каждом изменении соответствующих данных.
+    // Для отсутствующей сущности getEntityVersion возвращает 0
+    long getVersion(TaskType type);
+
+    long getEntityVersion(int id);
+
+    long getHistoryVersion();
+
+    // Пакет операций: проверяется целиком и применяется по порядку, только если
+    // ошибок нет. Результат — по одному BatchResult на операцию
+    List<BatchResult> executeBatch(List<BatchOperation> operations);
+
+    // Останавливает фоновые потоки менеджера и его истории; после close() менеджером не пользуются
+    default void close() {
+    }
+}
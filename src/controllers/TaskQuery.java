@@ -0,0 +1,84 @@
+package controllers;
+
+import model.Status;
+import model.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Параметры постраничной выборки задач: страница идёт по возрастанию id,
+// начиная с первого id больше cursor
+public class TaskQuery {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private Set<TaskType> types = EnumSet.allOf(TaskType.class);
+    private Status status;
+    private LocalDateTime startFrom;
+    private LocalDateTime startTo;
+    private int cursor;
+    private int limit = DEFAULT_LIMIT;
+
+    public Set<TaskType> getTypes() {
+        return types;
+    }
+
+    public TaskQuery types(Set<TaskType> types) {
+        if (types.isEmpty()) throw new IllegalArgumentException("types must not be empty");
+        this.types = EnumSet.copyOf(types);
+        return this;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    // null — любой статус
+    public TaskQuery status(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public LocalDateTime getStartFrom() {
+        return startFrom;
+    }
+
+    // Начало не раньше startFrom; задачи без времени начала при этом не попадают в выборку
+    public TaskQuery startFrom(LocalDateTime startFrom) {
+        this.startFrom = startFrom;
+        return this;
+    }
+
+    public LocalDateTime getStartTo() {
+        return startTo;
+    }
+
+    // Начало строго раньше startTo
+    public TaskQuery startTo(LocalDateTime startTo) {
+        this.startTo = startTo;
+        return this;
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+
+    public TaskQuery cursor(int cursor) {
+        if (cursor < 0) throw new IllegalArgumentException("cursor must not be negative");
+        this.cursor = cursor;
+        return this;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public TaskQuery limit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        this.limit = limit;
+        return this;
+    }
+}
@@ -4,18 +4,20 @@ import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import model.Task;
+import model.TaskType;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class TasksHandler extends BaseHttpHandler {
 
-    public TasksHandler(TaskManager taskManager, Gson gson) {
-        super(taskManager, gson);
+    public TasksHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics) {
+        super(taskManager, gson, metrics);
     }
 
     @Override
-    public void handle(HttpExchange exchange) throws IOException {
+    protected void handleRequest(HttpExchange exchange) throws IOException {
         try {
             String method = exchange.getRequestMethod();
             String path = exchange.getRequestURI().getPath();
@@ -42,14 +44,32 @@ public class TasksHandler extends BaseHttpHandler {
                     sendBadRequest(exchange, "Unsupported method");
             }
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
+    // Без параметров отдаётся вся коллекция, как раньше; с любым из limit, cursor,
+    // status, type, from, to — страница по возрастанию id
     private void handleGetAllTasks(HttpExchange exchange) throws IOException {
-        List<Task> tasks = taskManager.getAllTasks();
-        String response = gson.toJson(tasks);
-        sendSuccess(exchange, response);
+        long version = versionOf(TaskType.TASK, TaskType.EPIC, TaskType.SUBTASK);
+        Map<String, String> params = parseQuery(exchange);
+        TaskQuery query = null;
+        if (!params.isEmpty()) {
+            try {
+                query = parseTaskQuery(params);
+            } catch (IllegalArgumentException e) {
+                sendBadRequest(exchange, "Invalid query parameters");
+                return;
+            }
+        }
+        if (checkNotModified(exchange, version)) return;
+
+        if (query == null) {
+            List<Task> tasks = taskManager.getAllTasks();
+            sendJsonArray(exchange, tasks);
+        } else {
+            sendPage(exchange, taskManager.findTasks(query));
+        }
     }
 
     private void handleGetTaskById(HttpExchange exchange) throws IOException {
@@ -60,15 +80,17 @@ public class TasksHandler extends BaseHttpHandler {
         }
 
         try {
+            // версия берётся до чтения: ETag не может оказаться новее тела ответа
+            long version = taskManager.getEntityVersion(idOpt.get());
             Task task = taskManager.getTaskById(idOpt.get());
             if (task == null) {
                 sendNotFound(exchange);
-            } else {
+            } else if (!checkNotModified(exchange, version)) {
                 String response = gson.toJson(task);
                 sendSuccess(exchange, response);
             }
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
@@ -89,7 +111,7 @@ public class TasksHandler extends BaseHttpHandler {
         } catch (IllegalArgumentException e) {
             sendHasInteractions(exchange);
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 
@@ -109,7 +131,7 @@ public class TasksHandler extends BaseHttpHandler {
             taskManager.deleteTaskById(idOpt.get());
             sendSuccess(exchange, "{\"message\": \"Task deleted\"}");
         } catch (Exception e) {
-            sendInternalError(exchange);
+            sendInternalError(exchange, e);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package controllers;
+
+// Сетевой слой HttpTaskServer
+public enum Transport {
+    JDK_HTTP_SERVER, // com.sun.net.httpserver.HttpServer из JDK
+    NIO              // NioHttpServer: один селектор, пул прямых буферов, keep-alive и конвейер запросов
+}
@@ -1,37 +1,49 @@
 package model;
 
+import util.IntSet;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private final List<Integer> subtaskIds;
+    private final IntSet subtaskIds;
     private LocalDateTime endTime;
 
     public Epic(int id, String name, String description) {
         super(id, name, description, Status.NEW);
-        this.subtaskIds = new ArrayList<>();
+        this.subtaskIds = new IntSet();
         setDuration(Duration.ZERO);
         setStartTime(null);
         this.endTime = null;
     }
 
     public List<Integer> getSubtaskIds() {
-        return new ArrayList<>(subtaskIds);
+        return subtaskIds.toList();
+    }
+
+    // Обход без копирования и упаковки id
+    public void forEachSubtaskId(IntConsumer action) {
+        subtaskIds.forEach(action);
+    }
+
+    public int getSubtaskCount() {
+        return subtaskIds.size();
     }
 
     public void addSubtaskId(int subtaskId) {
-        if (!subtaskIds.contains(subtaskId)) {
-            subtaskIds.add(subtaskId);
-        }
+        beforeChange();
+        subtaskIds.add(subtaskId);
     }
 
     public void removeSubtaskId(int subtaskId) {
-        subtaskIds.remove(Integer.valueOf(subtaskId));
+        beforeChange();
+        subtaskIds.remove(subtaskId);
     }
 
     public void clearSubtaskIds() {
+        beforeChange();
         subtaskIds.clear();
     }
 
@@ -41,9 +53,26 @@ public class Epic extends Task {
     }
 
     public void setEndTime(LocalDateTime endTime) {
+        beforeChange();
         this.endTime = endTime;
     }
 
+    @Override
+    public Epic snapshot() {
+        return (Epic) super.snapshot();
+    }
+
+    @Override
+    public Epic copy() {
+        Epic copy = new Epic(getId(), getName(), getDescription());
+        copy.setStatus(getStatus());
+        copy.setDuration(getDuration());
+        copy.setStartTime(getStartTime());
+        copy.endTime = endTime;
+        subtaskIds.forEach(copy.subtaskIds::add);
+        return copy;
+    }
+
     @Override
     public String toString() {
         return "Epic{" +
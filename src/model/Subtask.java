@@ -22,9 +22,21 @@ public class Subtask extends Task {
     }
 
     public void setEpicId(int epicId) {
+        beforeChange();
         this.epicId = epicId;
     }
 
+    @Override
+    public Subtask snapshot() {
+        return (Subtask) super.snapshot();
+    }
+
+    @Override
+    public Subtask copy() {
+        return new Subtask(getId(), getName(), getDescription(), getStatus(),
+                getDuration(), getStartTime(), epicId);
+    }
+
     @Override
     public String toString() {
         return "Model.Subtask{" +
@@ -11,6 +11,10 @@ public class Task {
     private Status status;
     private Duration duration;        // продолжительность
     private LocalDateTime startTime;  // дата и время начала
+    // Снимок нельзя менять; у изменяемой задачи кэшируется последний снимок и
+    // сбрасывается при любом изменении. transient — чтобы не попадать в JSON
+    private transient boolean frozen;
+    private transient volatile Task snapshot;
 
     public Task(int id, String name, String description, Status status) {
         this(id, name, description, status, null, null);
@@ -32,6 +36,7 @@ public class Task {
     }
 
     public void setId(int id) {
+        beforeChange();
         this.id = id;
     }
 
@@ -40,6 +45,7 @@ public class Task {
     }
 
     public void setName(String name) {
+        beforeChange();
         this.name = name;
     }
 
@@ -48,6 +54,7 @@ public class Task {
     }
 
     public void setDescription(String description) {
+        beforeChange();
         this.description = description;
     }
 
@@ -56,6 +63,7 @@ public class Task {
     }
 
     public void setStatus(Status status) {
+        beforeChange();
         this.status = status;
     }
 
@@ -64,6 +72,7 @@ public class Task {
     }
 
     public void setDuration(Duration duration) {
+        beforeChange();
         this.duration = duration;
     }
 
@@ -72,9 +81,38 @@ public class Task {
     }
 
     public void setStartTime(LocalDateTime startTime) {
+        beforeChange();
         this.startTime = startTime;
     }
 
+    // Неизменяемая копия того же типа. Пока задача не меняется, возвращается один
+    // и тот же снимок, так что его можно отдавать и хранить в истории без копирования
+    public Task snapshot() {
+        if (frozen) return this;
+        Task current = snapshot;
+        if (current == null) {
+            current = copy();
+            current.frozen = true;
+            snapshot = current;
+        }
+        return current;
+    }
+
+    public boolean isSnapshot() {
+        return frozen;
+    }
+
+    // Изменяемая копия того же типа, в том числе у снимка: её можно поменять и передать в update*
+    public Task copy() {
+        return new Task(id, name, description, status, duration, startTime);
+    }
+
+    // Вызывается каждым сеттером до изменения полей
+    protected void beforeChange() {
+        if (frozen) throw new UnsupportedOperationException("Task snapshot is read-only: " + id);
+        snapshot = null;
+    }
+
     public LocalDateTime getEndTime() {
         if (startTime == null || duration == null) {
             return null;
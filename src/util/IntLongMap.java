@@ -0,0 +1,112 @@
+package util;
+
+import java.util.Arrays;
+
+// Отображение int -> long на открытой адресации, без упаковки ключей и значений.
+// Порядок обхода не нужен, поэтому ключи и значения лежат прямо в хеш-таблице
+public class IntLongMap {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+
+    public IntLongMap() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new long[DEFAULT_CAPACITY];
+        used = new boolean[DEFAULT_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    public long get(int key, long defaultValue) {
+        int slot = findSlot(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    public void put(int key, long value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    // Удаление со сдвигом следующих записей цепочки назад, как в IntMap
+    public boolean remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) return false;
+
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = slot;
+        used[hole] = false;
+        size--;
+        while (true) {
+            next = (next + 1) & mask;
+            if (!used[next]) return true;
+            int home = hash(keys[next]) & mask;
+            boolean between = hole <= next
+                    ? hole < home && home <= next
+                    : hole < home || home <= next;
+            if (!between) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                used[hole] = true;
+                used[next] = false;
+                hole = next;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
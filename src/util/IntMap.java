@@ -0,0 +1,351 @@
+package util;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+// Отображение int -> V без упаковки ключей.
+// Записи лежат в плотных массивах в порядке добавления, а хеш-таблица с линейным
+// пробированием хранит номера записей. Удалённая запись оставляет дыру, которая
+// исчезает при следующем уплотнении. Значения null не поддерживаются.
+// Пока ключи добавляются по возрастанию (id так и выдаются), плотный массив
+// отсортирован, и обход с произвольного ключа начинается двоичным поиском
+public class IntMap<V> {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    private int[] table; // номер записи + 1, 0 — пустая ячейка
+    private int count;   // занятая часть плотных массивов, включая дыры
+    private int size;
+    private boolean sorted = true;
+
+    public IntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntMap(int expectedSize) {
+        int capacity = Math.max(DEFAULT_CAPACITY, expectedSize);
+        keys = new int[capacity];
+        values = new Object[capacity];
+        table = new int[tableSizeFor(capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[table[slot] - 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int index = table[slot] - 1;
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        if (count == keys.length) {
+            growOrCompact();
+        }
+        if (count > 0 && key < keys[count - 1]) {
+            sorted = false;
+        }
+        keys[count] = key;
+        values[count] = value;
+        count++;
+        size++;
+        insertIndex(count - 1);
+        return null;
+    }
+
+    public V computeIfAbsent(int key, IntFunction<? extends V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) return null;
+
+        int index = table[slot] - 1;
+        V previous = (V) values[index];
+        values[index] = null;
+        size--;
+        deleteSlot(slot);
+        while (count > 0 && values[count - 1] == null) {
+            count--;
+        }
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, count, null);
+        Arrays.fill(table, 0);
+        count = 0;
+        size = 0;
+        sorted = true;
+    }
+
+    public void forEachKey(IntConsumer action) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null) action.accept(keys[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null) action.accept((V) values[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super V> filter) {
+        boolean removed = false;
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null && filter.test((V) values[i])) {
+                remove(keys[i]);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    public int[] keys() {
+        int[] result = new int[size];
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null) result[next++] = keys[i];
+        }
+        return result;
+    }
+
+    // Живое представление значений в порядке добавления ключей
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Значения с ключами >= fromKey в порядке возрастания ключей. Карту не меняет,
+    // поэтому безопасен для параллельных читателей. Если ключи добавлялись
+    // не по порядку, каждый вызов сортирует копию; sortByKey() возвращает быстрый путь
+    @SuppressWarnings("unchecked")
+    public Iterator<V> ascendingFrom(int fromKey) {
+        if (!sorted) {
+            List<V> snapshot = new ArrayList<>();
+            long[] order = sortedOrder();
+            for (long entry : order) {
+                if ((int) (entry >> 32) >= fromKey) snapshot.add((V) values[(int) entry]);
+            }
+            return Collections.unmodifiableList(snapshot).iterator();
+        }
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < fromKey) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return new ValueIterator(low);
+    }
+
+    // Переставляет записи по возрастанию ключей
+    public void sortByKey() {
+        if (sorted) return;
+        long[] order = sortedOrder();
+        int[] sortedKeys = new int[keys.length];
+        Object[] sortedValues = new Object[values.length];
+        for (int i = 0; i < order.length; i++) {
+            int index = (int) order[i];
+            sortedKeys[i] = keys[index];
+            sortedValues[i] = values[index];
+        }
+        keys = sortedKeys;
+        values = sortedValues;
+        count = size;
+        sorted = true;
+        rebuildTable(table.length);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null) joiner.add(keys[i] + "=" + values[i]);
+        }
+        return joiner.toString();
+    }
+
+    private int findSlot(int key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != 0) {
+            if (keys[table[slot] - 1] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertIndex(int index) {
+        if ((size << 1) > table.length) {
+            rebuildTable(table.length << 1);
+            return;
+        }
+        int mask = table.length - 1;
+        int slot = hash(keys[index]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    // Удаление со сдвигом следующих записей цепочки назад, без надгробий
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int next = slot;
+        table[hole] = 0;
+        while (true) {
+            next = (next + 1) & mask;
+            if (table[next] == 0) return;
+            int home = hash(keys[table[next] - 1]) & mask;
+            boolean between = hole <= next
+                    ? hole < home && home <= next
+                    : hole < home || home <= next;
+            if (!between) {
+                table[hole] = table[next];
+                table[next] = 0;
+                hole = next;
+            }
+        }
+    }
+
+    // Если дыр больше половины, массивы уплотняются на месте, иначе растут вдвое
+    private void growOrCompact() {
+        if (size <= count >> 1) {
+            int next = 0;
+            for (int i = 0; i < count; i++) {
+                if (values[i] != null) {
+                    keys[next] = keys[i];
+                    values[next] = values[i];
+                    next++;
+                }
+            }
+            Arrays.fill(values, next, count, null);
+            count = next;
+        } else {
+            keys = Arrays.copyOf(keys, keys.length << 1);
+            values = Arrays.copyOf(values, values.length << 1);
+        }
+        rebuildTable(Math.max(table.length, tableSizeFor(keys.length)));
+    }
+
+    // Пары (ключ, номер записи) живых записей, упакованные в long и отсортированные по ключу
+    private long[] sortedOrder() {
+        long[] order = new long[size];
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null) order[next++] = ((long) keys[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        return order;
+    }
+
+    private void rebuildTable(int tableSize) {
+        table = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int i = 0; i < count; i++) {
+            if (values[i] == null) continue;
+            int slot = hash(keys[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private int next;
+        private int last = -1;
+
+        ValueIterator() {
+            this(0);
+        }
+
+        ValueIterator(int from) {
+            next = advance(from);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            last = next;
+            next = advance(next + 1);
+            return (V) values[last];
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) throw new IllegalStateException();
+            IntMap.this.remove(keys[last]);
+            last = -1;
+        }
+
+        private int advance(int from) {
+            while (from < count && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+    }
+}
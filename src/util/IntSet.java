@@ -0,0 +1,66 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.IntConsumer;
+
+// Множество int в порядке добавления, поверх IntMap
+public class IntSet {
+    private static final Object PRESENT = new Object();
+
+    private final IntMap<Object> map;
+
+    public IntSet() {
+        map = new IntMap<>();
+    }
+
+    public IntSet(int expectedSize) {
+        map = new IntMap<>(expectedSize);
+    }
+
+    public boolean add(int value) {
+        return map.put(value, PRESENT) == null;
+    }
+
+    public boolean remove(int value) {
+        return map.remove(value) != null;
+    }
+
+    public boolean contains(int value) {
+        return map.containsKey(value);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public void forEach(IntConsumer action) {
+        map.forEachKey(action);
+    }
+
+    public int[] toArray() {
+        return map.keys();
+    }
+
+    public List<Integer> toList() {
+        List<Integer> result = new ArrayList<>(map.size());
+        map.forEachKey(result::add);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        map.forEachKey(value -> joiner.add(Integer.toString(value)));
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Гистограмма неотрицательных значений (например, задержек в наносекундах) с
+// логарифмическими корзинами: на каждую степень двойки SUB_BUCKETS корзин, поэтому
+// квантиль завышается не больше чем на 1/SUB_BUCKETS. Запись — инкремент одной ячейки
+// AtomicLongArray и LongAdder, без блокировок; чтение может не видеть записи,
+// идущие в этот момент
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // другой поток записал большее значение — повторяем сравнение
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // Квантили для q из [0, 1] по одному снимку корзин; каждый — верхняя граница
+    // корзины, но не больше максимума. Для пустой гистограммы — нули
+    public long[] quantiles(double... qs) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] result = new long[qs.length];
+        if (total == 0) return result;
+
+        long maxValue = max.get();
+        for (int q = 0; q < qs.length; q++) {
+            long rank = Math.max(1, (long) Math.ceil(qs[q] * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    result[q] = Math.min(upperBound(i), maxValue);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    public long quantile(double q) {
+        return quantiles(q)[0];
+    }
+
+    // Значения меньше 2 * SUB_BUCKETS лежат в своих корзинах, дальше корзина
+    // определяется старшим битом и следующими SUB_BITS битами
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long upperBound(int index) {
+        int block = index / SUB_BUCKETS;
+        if (block == 0) return index;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (block - 1);
+        return lower + (1L << (block - 1)) - 1;
+    }
+}
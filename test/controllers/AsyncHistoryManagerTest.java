@@ -0,0 +1,109 @@
+package controllers;
+
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHistoryManagerTest {
+    private final AsyncHistoryManager history = new AsyncHistoryManager(new InMemoryHistoryManager(10_000));
+
+    @AfterEach
+    void tearDown() {
+        history.close();
+    }
+
+    @Test
+    void readYourWritesShouldSeeEveryChangeMadeBeforeCall() {
+        for (int id = 1; id <= 100; id++) {
+            history.add(new Task(id, "Task" + id, "Desc", Status.NEW));
+        }
+        history.add(new Task(1, "Task1", "Desc", Status.DONE));
+        history.remove(2);
+
+        List<Task> tasks = history.getHistory(true);
+        assertEquals(99, tasks.size());
+        assertEquals(3, tasks.get(0).getId());
+        assertEquals(Status.DONE, tasks.get(tasks.size() - 1).getStatus());
+        assertEquals(102, history.getVersion());
+    }
+
+    @Test
+    void historyShouldStayUsableAfterClose() {
+        // поток ещё не запущен: close() ждать нечего, а после него очередь переносят читатели
+        AsyncHistoryManager unused = new AsyncHistoryManager(new InMemoryHistoryManager());
+        unused.close();
+        unused.add(new Task(1, "Task", "Desc", Status.NEW));
+
+        assertEquals(1, unused.getHistory(true).size());
+        assertEquals(1, unused.getVersion());
+    }
+
+    @Test
+    void historyShouldBeBuiltOnlyWhenReadAfterChanges() {
+        AtomicInteger builds = new AtomicInteger();
+        AsyncHistoryManager counted = new AsyncHistoryManager(new InMemoryHistoryManager() {
+            @Override
+            public List<Task> getHistory() {
+                builds.incrementAndGet();
+                return super.getHistory();
+            }
+        });
+        try {
+            for (int id = 1; id <= 100; id++) {
+                counted.add(new Task(id, "Task" + id, "Desc", Status.NEW));
+                counted.getVersion();
+            }
+            assertEquals(0, builds.get());
+
+            assertEquals(100, counted.getHistory(true).size());
+            assertEquals(100, counted.getHistory().size());
+            assertEquals(1, builds.get());
+        } finally {
+            counted.close();
+        }
+    }
+
+    @Test
+    void recorderShouldPublishHistoryInBackground() throws Exception {
+        history.add(new Task(1, "Task", "Desc", Status.NEW));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (history.getHistory().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, history.getHistory().size());
+    }
+
+    @Test
+    void concurrentViewsShouldAllBeRecordedInPerThreadOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int base = t * 1_000;
+            executor.execute(() -> {
+                for (int i = 1; i <= 1_000; i++) {
+                    history.add(new Task(base + i, "Task", "Desc", Status.NEW));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Task> tasks = history.getHistory(true);
+        assertEquals(4_000, tasks.size());
+        int[] last = new int[4];
+        for (Task task : tasks) {
+            int thread = (task.getId() - 1) / 1_000;
+            assertTrue(task.getId() > last[thread], "Просмотры одного потока идут по порядку");
+            last[thread] = task.getId();
+        }
+    }
+}
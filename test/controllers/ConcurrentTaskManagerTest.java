@@ -0,0 +1,157 @@
+package controllers;
+
+import adapters.DurationAdapter;
+import adapters.IntSetAdapter;
+import adapters.LocalDateTimeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest {
+    private static final int THREADS = 8;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private ConcurrentTaskManager manager;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        manager = new ConcurrentTaskManager();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        manager.close();
+    }
+
+    @Test
+    void parallelCreatesShouldGetUniqueIds() throws Exception {
+        int perThread = 500;
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                List<Integer> ids = new ArrayList<>();
+                for (int i = 0; i < perThread; i++) {
+                    LocalDateTime start = BASE.plusMinutes((thread * perThread + i) * 10L);
+                    ids.add(manager.createTask(new Task(0, "Task", "Desc", Status.NEW,
+                            Duration.ofMinutes(5), start)));
+                    manager.getPrioritizedTasks();
+                }
+                return ids;
+            }));
+        }
+
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        for (Future<List<Integer>> future : futures) {
+            ids.addAll(future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * perThread, ids.size());
+        assertEquals(THREADS * perThread, manager.getAllTasks().size());
+        assertEquals(THREADS * perThread, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void onlyOneOfConflictingCreatesShouldSucceed() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch startGate = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                startGate.await();
+                try {
+                    manager.createTask(new Task(0, "Slot", "Desc", Status.NEW,
+                            Duration.ofMinutes(30), BASE));
+                    created.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // ожидаемое пересечение
+                }
+                return null;
+            });
+        }
+        startGate.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, created.get());
+        assertEquals(1, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void epicStatusShouldMatchSubtasksAfterParallelUpdates() throws Exception {
+        int epicId = manager.createEpic(new Epic(0, "Epic", "Desc"));
+        int subtaskCount = THREADS * 50;
+        List<Integer> subtaskIds = new ArrayList<>();
+        for (int i = 0; i < subtaskCount; i++) {
+            subtaskIds.add(manager.createSubtask(new Subtask(0, "Sub", "Desc", Status.NEW,
+                    Duration.ofMinutes(5), BASE.plusMinutes(i * 10L), epicId)));
+        }
+
+        for (Integer id : subtaskIds) {
+            executor.submit(() -> {
+                Subtask current = manager.getSubtaskById(id);
+                manager.updateSubtask(new Subtask(id, current.getName(), current.getDescription(),
+                        Status.DONE, current.getDuration(), current.getStartTime(), epicId));
+                manager.getEpicById(epicId);
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Set<Status> statuses = manager.getSubtasksByEpicId(epicId).stream()
+                .map(Subtask::getStatus)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(Status.DONE), statuses);
+        assertEquals(Status.DONE, manager.getEpicById(epicId).getStatus());
+        assertEquals(Duration.ofMinutes(5L * subtaskCount), manager.getEpicById(epicId).getDuration());
+    }
+
+    @Test
+    void listsShouldSerializeWhileEpicChanges() throws Exception {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapter(Duration.class, new DurationAdapter())
+                .registerTypeAdapter(util.IntSet.class, new IntSetAdapter())
+                .create();
+        int epicId = manager.createEpic(new Epic(0, "Epic", "Desc"));
+        // большой эпик: его список подзадач сериализуется долго, и запись успевает вклиниться
+        for (int i = 0; i < 20_000; i++) {
+            manager.createSubtask(new Subtask(0, "Sub", "Desc", Status.NEW, epicId));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        Future<?> writer = executor.submit(() -> {
+            try {
+                for (int i = 0; i < 50_000; i++) {
+                    int id = manager.createSubtask(new Subtask(0, "Sub", "Desc", Status.NEW, epicId));
+                    manager.deleteSubtaskById(id);
+                }
+            } finally {
+                done.set(true);
+            }
+        });
+
+        // обработчик сериализует список уже без блокировки, пока эпик меняется
+        while (!done.get()) {
+            gson.toJson(manager.getAllEpics());
+        }
+        writer.get(30, TimeUnit.SECONDS);
+        assertEquals(manager.getAllSubtasks().size(), manager.getEpicById(epicId).getSubtaskIds().size());
+    }
+}
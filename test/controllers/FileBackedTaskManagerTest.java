@@ -1,14 +1,23 @@
 package test;
 
+import controllers.BatchOperation;
+import controllers.Durability;
 import controllers.FileBackedTaskManager;
+import controllers.ManagerSaveException;
+import controllers.PersistenceOptions;
+import controllers.StorageMode;
 import model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,4 +56,254 @@ public class FileBackedTaskManagerTest {
         assertTrue(tasks.stream().anyMatch(t -> t.getName().equals("Epic 1")));
         assertTrue(tasks.stream().anyMatch(t -> t.getName().equals("Subtask 1")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void journalShouldRestoreStateWithoutRewritingSnapshot() throws Exception {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile.toFile(), StorageMode.JOURNAL);
+        int epicId = journaled.createEpic(new Epic(0, "Epic 1", "Description"));
+        int subId = journaled.createSubtask(new Subtask(0, "Subtask 1", "Description", Status.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 2, 10, 0), epicId));
+        int taskId = journaled.createTask(new Task(0, "Task 1", "Description", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 12, 0)));
+        int removedId = journaled.createTask(new Task(0, "Task 2", "Description", Status.NEW));
+        journaled.updateSubtask(new Subtask(subId, "Subtask 1", "Description", Status.DONE,
+                Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 2, 10, 0), epicId));
+        journaled.updateTask(new Task(taskId, "Task 1 renamed", "Description", Status.IN_PROGRESS,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 12, 0)));
+        journaled.deleteTaskById(removedId);
+        journaled.close();
+
+        assertEquals(0, Files.size(tempFile), "Снимок не должен переписываться в режиме журнала");
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), StorageMode.JOURNAL);
+        assertEquals("Task 1 renamed", reloaded.getTaskById(taskId).getName());
+        assertNull(reloaded.getTaskById(removedId));
+        assertEquals(Status.DONE, reloaded.getEpicById(epicId).getStatus());
+        assertEquals(1, reloaded.getPrioritizedTasks().stream().filter(t -> t.getId() == subId).count());
+        assertTrue(reloaded.createTask(new Task(0, "Task 3", "Description", Status.NEW)) > removedId);
+    }
+
+    @Test
+    void checkpointShouldFoldJournalIntoSnapshot() {
+        Path journalFile = Path.of(tempFile + ".log");
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile.toFile(), StorageMode.JOURNAL);
+        int epicId = journaled.createEpic(new Epic(0, "Epic 1", "Description"));
+        journaled.createSubtask(new Subtask(0, "Subtask 1", "Description", Status.NEW, epicId));
+        journaled.checkpoint();
+        assertFalse(Files.exists(journalFile), "После снимка журнал должен быть очищен");
+
+        journaled.deleteEpicById(epicId);
+        journaled.close();
+        assertTrue(Files.exists(journalFile));
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile());
+        assertTrue(reloaded.getAllTasks().isEmpty(), "Подзадачи удалённого эпика не должны восстанавливаться");
+    }
+
+    @Test
+    void groupCommitShouldPersistConcurrentWritesBeforeReturning() throws Exception {
+        PersistenceOptions options = new PersistenceOptions()
+                .storageMode(StorageMode.JOURNAL)
+                .durability(Durability.GROUP_COMMIT)
+                .flushInterval(Duration.ofMillis(5))
+                .batchSize(16);
+        FileBackedTaskManager grouped = new FileBackedTaskManager(tempFile.toFile(), options);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 200; i++) {
+            int index = i;
+            executor.submit(() -> grouped.createTask(new Task(0, "Task " + index, "Description", Status.NEW,
+                    Duration.ofMinutes(5), LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(index * 10L))));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // без flush: каждая операция уже дождалась записи своей пачки
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), StorageMode.JOURNAL);
+        assertEquals(200, reloaded.getAllTasks().size());
+        assertEquals(200, reloaded.getPrioritizedTasks().size());
+        grouped.close();
+    }
+
+    @Test
+    void asyncSnapshotShouldBeWrittenOnFlush() {
+        PersistenceOptions options = new PersistenceOptions()
+                .durability(Durability.ASYNC)
+                .flushInterval(Duration.ofSeconds(30));
+        FileBackedTaskManager async = new FileBackedTaskManager(tempFile.toFile(), options);
+        int epicId = async.createEpic(new Epic(0, "Epic 1", "Description"));
+        async.createSubtask(new Subtask(0, "Subtask 1", "Description", Status.DONE, epicId));
+
+        async.flush();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile());
+        assertEquals(2, reloaded.getAllTasks().size());
+        assertEquals(Status.DONE, reloaded.getEpicById(epicId).getStatus());
+        async.close();
+    }
+
+    @Test
+    void backgroundCompactionShouldKeepConcurrentWrites() throws Exception {
+        PersistenceOptions options = new PersistenceOptions()
+                .storageMode(StorageMode.JOURNAL)
+                .compactionInterval(Duration.ofMillis(1))
+                .compactionThreshold(1);
+        FileBackedTaskManager compacted = new FileBackedTaskManager(tempFile.toFile(), options);
+
+        for (int i = 0; i < 300; i++) {
+            int id = compacted.createTask(new Task(0, "Task " + i, "Description", Status.NEW));
+            if (i % 3 == 0) compacted.deleteTaskById(id);
+        }
+        Thread.sleep(50);
+        compacted.close();
+
+        assertTrue(Files.size(tempFile) > 0, "Журнал должен быть свёрнут в снимок");
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), StorageMode.JOURNAL);
+        assertEquals(200, reloaded.getAllTasks().size());
+        assertTrue(reloaded.getAllTasks().stream().noneMatch(t -> t.getName().equals("Task 0")));
+    }
+
+    @Test
+    void shouldRoundTripEscapedCharacters() {
+        String name = "Commas, \\backslashes\\n and\nnewlines";
+        int id = manager.createTask(new Task(0, name, "a,b,c\\", Status.NEW));
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile());
+
+        assertEquals(name, reloaded.getTaskById(id).getName());
+        assertEquals("a,b,c\\", reloaded.getTaskById(id).getDescription());
+    }
+
+    @Test
+    void shouldReportMalformedLineNumber() throws Exception {
+        Files.writeString(tempFile, "id,type,name,status,description,duration,startTime,epic\n"
+                + "1,TASK,Task 1,NEW,Description,,,\n"
+                + "\n"
+                + "2,TASK,Task 2,UNKNOWN,Description,,,\n");
+
+        ManagerSaveException e = assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(tempFile.toFile()));
+        assertTrue(e.getMessage().contains("line 4"), e.getMessage());
+    }
+
+    @Test
+    void shouldIgnoreTornLastJournalRecord() throws Exception {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile.toFile(), StorageMode.JOURNAL);
+        int id = journaled.createTask(new Task(0, "Task 1", "Description", Status.NEW));
+        journaled.close();
+        Files.writeString(Path.of(tempFile + ".log"), "PUT,2,TASK,Tor", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), StorageMode.JOURNAL);
+
+        assertEquals(List.of(id), reloaded.getAllTasks().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void leftoverSealedJournalsShouldReplayInOrderUntilCheckpoint() throws Exception {
+        PersistenceOptions options = new PersistenceOptions().storageMode(StorageMode.JOURNAL)
+                .compactionInterval(null);
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile.toFile(), options);
+        int id = journaled.createTask(new Task(0, "Old", "Description", Status.NEW));
+        journaled.close();
+        // сжатие дважды запечатало журнал и оборвалось, не записав снимок
+        Path journal = Path.of(tempFile + ".log");
+        String record = Files.readString(journal);
+        Files.writeString(Path.of(tempFile + ".log.1"), record);
+        Files.writeString(Path.of(tempFile + ".log.2"), record.replace("Old", "New"));
+        Files.delete(journal);
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), options);
+        assertEquals("New", reloaded.getTaskById(id).getName());
+        reloaded.createTask(new Task(0, "Task", "Description", Status.NEW));
+        reloaded.checkpoint();
+        reloaded.close();
+
+        assertFalse(Files.exists(Path.of(tempFile + ".log.1")));
+        assertFalse(Files.exists(Path.of(tempFile + ".log.2")));
+        assertFalse(Files.exists(Path.of(tempFile + ".log.3")));
+        assertEquals(2, FileBackedTaskManager.loadFromFile(tempFile.toFile(), options).getAllTasks().size());
+    }
+
+    @Test
+    void batchShouldBeAppendedToJournalOnce() throws Exception {
+        PersistenceOptions options = new PersistenceOptions().storageMode(StorageMode.JOURNAL)
+                .compactionInterval(null);
+        FileBackedTaskManager journaled = new FileBackedTaskManager(tempFile.toFile(), options);
+        int taskId = journaled.createTask(new Task(0, "Task", "Description", Status.NEW));
+        Path journal = Path.of(tempFile + ".log");
+
+        journaled.executeBatch(List.of(
+                BatchOperation.create(new Epic(0, "Epic", "Description")),
+                BatchOperation.create(new Subtask(0, "Sub", "Description", Status.NEW, -1)),
+                BatchOperation.delete(TaskType.TASK, taskId)));
+        journaled.close();
+
+        // задача до пакета, затем эпик, подзадача и удаление
+        assertEquals(4, Files.readAllLines(journal).size());
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), options);
+        assertTrue(reloaded.getAllTasks().stream().noneMatch(t -> t.getId() == taskId));
+        assertEquals(1, reloaded.getAllSubtasks().size());
+        assertEquals(1, reloaded.getAllEpics().get(0).getSubtaskIds().size());
+    }
+
+    @Test
+    void historyShouldSurviveRestartWithoutRewritingSnapshot() throws Exception {
+        PersistenceOptions options = new PersistenceOptions().persistHistory(true);
+        manager = new FileBackedTaskManager(tempFile.toFile(), options);
+        int first = manager.createTask(new Task(0, "First", "Description", Status.NEW));
+        int epicId = manager.createEpic(new Epic(0, "Epic", "Description"));
+        int removed = manager.createTask(new Task(0, "Removed", "Description", Status.NEW));
+        long snapshotModified = Files.getLastModifiedTime(tempFile).toMillis();
+        String snapshot = Files.readString(tempFile);
+
+        manager.getTaskById(first);
+        manager.getEpicById(epicId);
+        manager.getTaskById(removed);
+        manager.getTaskById(first);
+        manager.flush();
+        // просмотры не переписывают файл задач
+        assertEquals(snapshot, Files.readString(tempFile));
+        assertEquals(snapshotModified, Files.getLastModifiedTime(tempFile).toMillis());
+
+        manager.deleteTaskById(removed);
+        manager.close();
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), options);
+
+        assertEquals(List.of(epicId, first), reloaded.getHistory().stream().map(Task::getId).toList());
+        assertEquals(TaskType.EPIC, reloaded.getHistory().get(0).getType());
+        // при загрузке журнал истории сжат до текущей истории
+        assertEquals(List.of(String.valueOf(epicId), String.valueOf(first)),
+                Files.readAllLines(Path.of(tempFile + ".history")));
+    }
+
+    @Test
+    void historyLogShouldBeCompactedAfterThreshold() throws Exception {
+        PersistenceOptions options = new PersistenceOptions().persistHistory(true).historyCompactionThreshold(50);
+        FileBackedTaskManager compacting = new FileBackedTaskManager(tempFile.toFile(), options);
+        int[] ids = new int[3];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = compacting.createTask(new Task(0, "Task " + i, "Description", Status.NEW));
+        }
+        for (int i = 0; i < 120; i++) {
+            compacting.getTaskById(ids[i % ids.length]);
+        }
+        compacting.close();
+
+        // свёртку делает писатель после пачки, набравшей 50 просмотров: после последней
+        // в журнале 3 id истории и меньше 50 дописанных
+        assertTrue(Files.readAllLines(Path.of(tempFile + ".history")).size() < 3 + 50);
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), options);
+        assertEquals(compacting.getHistory().stream().map(Task::getId).toList(),
+                reloaded.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void historyShouldNotBePersistedByDefault() {
+        int id = manager.createTask(new Task(0, "Task", "Description", Status.NEW));
+        manager.getTaskById(id);
+        manager.close();
+
+        assertFalse(Files.exists(Path.of(tempFile + ".history")));
+        assertTrue(FileBackedTaskManager.loadFromFile(tempFile.toFile()).getHistory().isEmpty());
+    }
+}
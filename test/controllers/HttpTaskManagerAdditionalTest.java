@@ -1,15 +1,22 @@
 package tests;
 
 import com.google.gson.Gson;
+import model.Epic;
 import model.Status;
+import model.Subtask;
 import model.Task;
 import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -71,4 +78,211 @@ public class HttpTaskManagerAdditionalTest extends BaseHttpTest {
         assertEquals(200, response.statusCode());
         assertEquals("[]", response.body());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetTasksPage() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Description", Status.NEW));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks?limit=2&status=new");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        Task[] tasks = taskServer.getGson().fromJson(response.body(), Task[].class);
+        assertEquals(2, tasks.length);
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElseThrow();
+        assertEquals(String.valueOf(tasks[1].getId()), cursor);
+
+        url = URI.create("http://localhost:8080/tasks?limit=10&cursor=" + cursor);
+        response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(3, taskServer.getGson().fromJson(response.body(), Task[].class).length);
+        assertTrue(response.headers().firstValue("X-Next-Cursor").isEmpty());
+    }
+
+    @Test
+    public void testGetTasksPageWithInvalidLimit() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/epics?limit=0");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void testStreamedListMatchesBufferedJson() throws Exception {
+        manager.createTask(new Task(0, "Task <1>", "Line 1\nLine 2", Status.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 9, 0)));
+        int epicId = manager.createEpic(new Epic(0, "Epic", "Description"));
+        manager.createSubtask(new Subtask(0, "Subtask", "Description", Status.DONE, epicId));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty());
+        assertEquals(taskServer.getGson().toJson(manager.getAllTasks()), response.body());
+    }
+
+    @Test
+    public void testLargeListIsCompressedWhenClientAcceptsGzip() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Description", Status.NEW));
+        }
+
+        HttpResponse<byte[]> response = getWithEncoding("/tasks", "br;q=1.0, gzip;q=0.8, deflate;q=0.5");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        String body = new String(new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals(taskServer.getGson().toJson(manager.getAllTasks()), body);
+        assertTrue(response.body().length * 4 < body.length());
+    }
+
+    @Test
+    public void testDeflateIsUsedWhenGzipIsRefused() throws Exception {
+        int id = manager.createTask(new Task(0, "Long task", "x".repeat(5000), Status.NEW));
+
+        HttpResponse<byte[]> response = getWithEncoding("/tasks/" + id, "gzip;q=0, deflate");
+
+        assertEquals("deflate", response.headers().firstValue("Content-Encoding").orElse(null));
+        InputStream inflated = new InflaterInputStream(new ByteArrayInputStream(response.body()));
+        assertTrue(new String(inflated.readAllBytes(), StandardCharsets.UTF_8)
+                .contains("x".repeat(5000)));
+    }
+
+    @Test
+    public void testSmallResponsesAreSentUncompressed() throws Exception {
+        manager.createTask(new Task(0, "Task", "Description", Status.NEW));
+
+        HttpResponse<byte[]> response = getWithEncoding("/tasks", "gzip");
+
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(taskServer.getGson().toJson(manager.getAllTasks()),
+                new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    private HttpResponse<byte[]> getWithEncoding(String path, String acceptEncoding) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080" + path))
+                .header("Accept-Encoding", acceptEncoding)
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    public void testConditionalGetReturnsNotModifiedUntilCollectionChanges() throws Exception {
+        int id = manager.createTask(new Task(0, "Task", "Description", Status.NEW));
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> first = getWithETag(client, "/tasks", null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> second = getWithETag(client, "/tasks", etag);
+        assertEquals(304, second.statusCode());
+        assertEquals("", second.body());
+
+        manager.updateTask(new Task(id, "Renamed", "Description", Status.DONE));
+        HttpResponse<String> third = getWithETag(client, "/tasks", etag);
+        assertEquals(200, third.statusCode());
+        assertNotEquals(etag, third.headers().firstValue("ETag").orElseThrow());
+        assertTrue(third.body().contains("Renamed"));
+    }
+
+    @Test
+    public void testConditionalGetByIdStillRecordsView() throws Exception {
+        int first = manager.createTask(new Task(0, "First", "Description", Status.NEW));
+        int second = manager.createTask(new Task(0, "Second", "Description", Status.NEW));
+        HttpClient client = HttpClient.newHttpClient();
+
+        String etag = getWithETag(client, "/tasks/" + first, null).headers().firstValue("ETag").orElseThrow();
+        manager.getTaskById(second);
+        // изменение другой задачи не меняет ETag первой
+        manager.updateTask(new Task(second, "Second", "Changed", Status.NEW));
+        assertEquals(304, getWithETag(client, "/tasks/" + first, etag).statusCode());
+
+        assertEquals(first, manager.getHistory().get(manager.getHistory().size() - 1).getId());
+        String historyTag = getWithETag(client, "/history", null).headers().firstValue("ETag").orElseThrow();
+        manager.getTaskById(second);
+        assertEquals(200, getWithETag(client, "/history", historyTag).statusCode());
+    }
+
+    @Test
+    public void testBatchCreatesEpicWithSubtasksInOneRequest() throws Exception {
+        String body = "["
+                + "{\"action\": \"create\", \"type\": \"epic\", \"task\": {\"name\": \"Sprint\", \"description\": \"D\"}},"
+                + "{\"action\": \"create\", \"type\": \"subtask\", \"task\": {\"name\": \"Sub 1\","
+                + " \"description\": \"D\", \"status\": \"NEW\", \"epicId\": -1}},"
+                + "{\"action\": \"create\", \"type\": \"subtask\", \"task\": {\"name\": \"Sub 2\","
+                + " \"description\": \"D\", \"status\": \"DONE\", \"epicId\": -1}}"
+                + "]";
+        HttpResponse<String> response = postBatch(body);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"status\":\"CREATED\""));
+        assertEquals(1, manager.getAllEpics().size());
+        assertEquals(2, manager.getSubtasksByEpicId(manager.getAllEpics().get(0).getId()).size());
+        assertEquals(Status.IN_PROGRESS, manager.getAllEpics().get(0).getStatus());
+    }
+
+    @Test
+    public void testInvalidBatchIsRejectedWithPerItemErrors() throws Exception {
+        String body = "["
+                + "{\"action\": \"create\", \"type\": \"task\", \"task\": {\"name\": \"T\","
+                + " \"description\": \"D\", \"status\": \"NEW\"}},"
+                + "{\"action\": \"delete\", \"type\": \"epic\", \"id\": 42}"
+                + "]";
+        HttpResponse<String> response = postBatch(body);
+
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("NOT_APPLIED"));
+        assertTrue(response.body().contains("EPIC not found: 42"));
+        assertTrue(manager.getAllTasks().isEmpty());
+
+        assertEquals(400, postBatch("[{\"action\": \"archive\", \"type\": \"task\"}]").statusCode());
+    }
+
+    @Test
+    public void testMetricsCountRequestsByRouteMethodAndStatus() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks/999")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"T\", \"description\": \"D\","
+                        + " \"status\": \"NEW\"}")).build(), HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                URI.create("http://localhost:8080/metrics")).GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        String body = response.body();
+        assertTrue(body.contains("http_requests_total{route=\"/tasks\",method=\"GET\",status=\"200\"} 1"));
+        assertTrue(body.contains("http_requests_total{route=\"/tasks\",method=\"GET\",status=\"404\"} 1"));
+        assertTrue(body.contains("http_requests_total{route=\"/tasks\",method=\"POST\",status=\"201\"} 1"));
+        assertTrue(body.contains("http_request_duration_seconds_count{route=\"/tasks\",method=\"GET\"} 2"));
+        assertTrue(body.contains("http_request_errors_total{route=\"/tasks\",method=\"GET\"} 0"));
+        assertFalse(body.contains("http_request_bytes_total{route=\"/tasks\",method=\"POST\"} 0\n"));
+    }
+
+    private HttpResponse<String> postBatch(String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> getWithETag(HttpClient client, String path, String etag) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:8080" + path)).GET();
+        if (etag != null) builder.header("If-None-Match", etag);
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,241 @@
+package controllers;
+
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskServerOptionsTest {
+    private HttpTaskServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.stop();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ExecutionModel.class, names = "SINGLE_THREAD", mode = EnumSource.Mode.EXCLUDE)
+    void slowRequestShouldNotBlockOtherClients(ExecutionModel model) throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskManager manager = new ConcurrentTaskManager() {
+            @Override
+            public Task getTaskById(int id) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getTaskById(id);
+            }
+        };
+        int id = manager.createTask(new Task(0, "Task", "Desc", Status.NEW));
+        server = new HttpTaskServer(manager, new ServerOptions().executionModel(model).poolSize(2).backlog(64));
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+
+        CompletableFuture<HttpResponse<String>> slow = client.sendAsync(
+                get("/tasks/" + id), HttpResponse.BodyHandlers.ofString());
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // пока первый запрос висит в обработчике, остальные обслуживаются
+        HttpResponse<String> fast = client.send(get("/tasks"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, fast.statusCode());
+        assertFalse(slow.isDone());
+
+        release.countDown();
+        assertEquals(200, slow.get(5, TimeUnit.SECONDS).statusCode());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Transport.class)
+    void requestOverFullPoolQueueShouldGet503(Transport transport) throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskManager manager = new ConcurrentTaskManager() {
+            @Override
+            public Task getTaskById(int id) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getTaskById(id);
+            }
+        };
+        int id = manager.createTask(new Task(0, "Task", "Desc", Status.NEW));
+        server = new HttpTaskServer(manager, new ServerOptions().transport(transport)
+                .executionModel(ExecutionModel.PLATFORM_POOL).poolSize(1).queueCapacity(1));
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+
+        CompletableFuture<HttpResponse<String>> slow = client.sendAsync(
+                get("/tasks/" + id), HttpResponse.BodyHandlers.ofString());
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // один из двух запросов занимает место в очереди, второй сразу получает 503
+        CompletableFuture<HttpResponse<String>> first = client.sendAsync(get("/tasks"),
+                HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> second = client.sendAsync(get("/tasks"),
+                HttpResponse.BodyHandlers.ofString());
+        HttpResponse<?> rejected = (HttpResponse<?>) CompletableFuture.anyOf(first, second)
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(503, rejected.statusCode());
+        assertFalse(slow.isDone());
+
+        release.countDown();
+        assertEquals(200, slow.get(5, TimeUnit.SECONDS).statusCode());
+        int a = first.get(5, TimeUnit.SECONDS).statusCode();
+        int b = second.get(5, TimeUnit.SECONDS).statusCode();
+        assertTrue(a == 200 && b == 503 || a == 503 && b == 200, a + " " + b);
+    }
+
+    @Test
+    void readsOverInFlightLimitShouldBeRejectedWhileWritesProceed() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskManager manager = new ConcurrentTaskManager() {
+            @Override
+            public Task getTaskById(int id) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getTaskById(id);
+            }
+        };
+        int id = manager.createTask(new Task(0, "Task", "Desc", Status.NEW));
+        server = new HttpTaskServer(manager, new ServerOptions().maxReadsInFlight(1).maxWritesInFlight(1));
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+
+        CompletableFuture<HttpResponse<String>> slow = client.sendAsync(
+                get("/tasks/" + id), HttpResponse.BodyHandlers.ofString());
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        HttpResponse<String> rejected = client.send(get("/tasks"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(429, rejected.statusCode());
+        assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(null));
+
+        // у записей свой предел, занятое чтение им не мешает
+        HttpRequest post = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"name\": \"New\", \"description\": \"D\", \"status\": \"NEW\"}")).build();
+        assertEquals(201, client.send(post, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        release.countDown();
+        assertEquals(200, slow.get(5, TimeUnit.SECONDS).statusCode());
+        assertEquals(200, client.send(get("/tasks"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertTrue(server.getMetrics().toPrometheusText()
+                .contains("http_requests_total{route=\"/tasks\",method=\"GET\",status=\"429\"} 1"));
+    }
+
+    @Test
+    void clientOverRateShouldGetRetryAfterWithoutAffectingOthers() throws Exception {
+        server = new HttpTaskServer(Managers.getConcurrent(), new ServerOptions().clientRate(0.5).clientBurst(3)
+                .trustedProxies("127.0.0.1", "0:0:0:0:0:0:0:1"));
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, client.send(get("/tasks", "alice"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        HttpResponse<String> limited = client.send(get("/tasks", "alice"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(429, limited.statusCode());
+        assertEquals("2", limited.headers().firstValue("Retry-After").orElse(null));
+
+        assertEquals(200, client.send(get("/tasks", "bob"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        // /metrics не ограничивается
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, client.send(get("/metrics", "alice"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+    }
+
+    @Test
+    void rotatingClientIdShouldNotEvadeRateLimit() throws Exception {
+        server = new HttpTaskServer(Managers.getConcurrent(), new ServerOptions().clientRate(0.5).clientBurst(3));
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, client.send(get("/tasks", "client-" + i), HttpResponse.BodyHandlers.ofString())
+                    .statusCode());
+        }
+        assertEquals(429, client.send(get("/tasks", "client-3"), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void failureAfterHeadersShouldAbortResponse() throws Exception {
+        TaskManager manager = new ConcurrentTaskManager() {
+            @Override
+            public List<Task> getAllTasks() {
+                // первый элемент сериализуется после отправки заголовков, второй — падает
+                return new AbstractList<>() {
+                    @Override
+                    public Task get(int index) {
+                        if (index > 0) throw new IllegalStateException("broken task");
+                        return new Task(1, "Task", "Desc", Status.NEW);
+                    }
+
+                    @Override
+                    public int size() {
+                        return 2;
+                    }
+                };
+            }
+        };
+        server = new HttpTaskServer(manager);
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+
+        // ни 500 после 200, ни дописанный до конца короткий массив: соединение обрывается
+        assertThrows(IOException.class, () -> client.send(get("/tasks"), HttpResponse.BodyHandlers.ofString()));
+        assertEquals(200, client.send(get("/prioritized"), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void historyShouldBeKeptPerClient() throws Exception {
+        TaskManager manager = new ConcurrentTaskManager(Managers.getSessionHistory());
+        int first = manager.createTask(new Task(0, "First", "Desc", Status.NEW));
+        int second = manager.createTask(new Task(0, "Second", "Desc", Status.NEW));
+        server = new HttpTaskServer(manager);
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+
+        client.send(get("/tasks/" + first, "alice"), HttpResponse.BodyHandlers.ofString());
+        client.send(get("/tasks/" + second, "bob"), HttpResponse.BodyHandlers.ofString());
+
+        String alice = client.send(get("/history", "alice"), HttpResponse.BodyHandlers.ofString()).body();
+        String bob = client.send(get("/history", "bob"), HttpResponse.BodyHandlers.ofString()).body();
+        assertTrue(alice.contains("First") && !alice.contains("Second"), alice);
+        assertTrue(bob.contains("Second") && !bob.contains("First"), bob);
+        assertEquals("[]", client.send(get("/history"), HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    private HttpRequest get(String path, String clientId) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:8080" + path))
+                .header("X-Client-Id", clientId).GET().build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:8080" + path)).GET().build();
+    }
+}
@@ -64,4 +64,68 @@ class InMemoryHistoryManagerTest {
         assertEquals(Status.NEW, savedTask.getStatus());
         assertEquals("Task", savedTask.getName());
     }
-}
\ No newline at end of file
+
+    @Test
+    void historyShouldEvictLeastRecentlyViewedOverCapacity() {
+        HistoryManager bounded = new InMemoryHistoryManager(3);
+        for (int id = 1; id <= 3; id++) {
+            bounded.add(new Task(id, "Task" + id, "Desc", Status.NEW));
+        }
+        // повторный просмотр спасает первую задачу, вытесняется вторая
+        bounded.add(new Task(1, "Task1", "Desc", Status.NEW));
+        bounded.add(new Task(4, "Task4", "Desc", Status.NEW));
+
+        assertEquals(List.of(3, 1, 4), bounded.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void defaultHistoryShouldBeUnbounded() {
+        for (int id = 1; id <= 5_000; id++) {
+            historyManager.add(new Task(id, "Task" + id, "Desc", Status.NEW));
+        }
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(5_000, history.size());
+        assertEquals(1, history.get(0).getId());
+        assertEquals(5_000, history.get(history.size() - 1).getId());
+    }
+
+    @Test
+    void byteBudgetShouldEvictLargeTasks() {
+        InMemoryHistoryManager bounded = new InMemoryHistoryManager(100, 10_000);
+        String description = "x".repeat(2_000);
+        for (int id = 1; id <= 10; id++) {
+            bounded.add(new Task(id, "Task" + id, description, Status.NEW));
+        }
+
+        assertEquals(List.of(9, 10), bounded.getHistory().stream().map(Task::getId).toList());
+        assertTrue(bounded.getBytes() <= 10_000);
+
+        bounded.remove(9);
+        bounded.remove(10);
+        assertEquals(0, bounded.getBytes());
+
+        // задача больше бюджета всё равно остаётся последней просмотренной
+        bounded.add(new Task(11, "Huge", "x".repeat(20_000), Status.NEW));
+        assertEquals(1, bounded.getHistory().size());
+    }
+
+    @Test
+    void historyShouldKeepTaskTypesAndBeReadOnly() {
+        Epic epic = new Epic(1, "Epic", "Desc");
+        epic.addSubtaskId(2);
+        historyManager.add(epic);
+        historyManager.add(new Subtask(2, "Sub", "Desc", Status.NEW, 1));
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(List.of(2), ((Epic) history.get(0)).getSubtaskIds());
+        assertEquals(1, ((Subtask) history.get(1)).getEpicId());
+        assertThrows(UnsupportedOperationException.class, () -> history.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> history.get(0).setName("Changed"));
+
+        // пока история не менялась, список не собирается заново
+        assertSame(history, historyManager.getHistory());
+        historyManager.add(epic);
+        assertNotSame(history, historyManager.getHistory());
+    }
+}
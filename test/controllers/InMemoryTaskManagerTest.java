@@ -1,12 +1,18 @@
 package test;
 
+import controllers.BatchOperation;
+import controllers.BatchResult;
 import controllers.InMemoryTaskManager;
+import controllers.Page;
+import controllers.TaskQuery;
 import model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -43,4 +49,215 @@ public class InMemoryTaskManagerTest {
 
         assertThrows(IllegalArgumentException.class, () -> manager.createTask(t2));
     }
+
+    @Test
+    @DisplayName("Проверка пересечения задач: конфликт находится и с предыдущей, и со следующей задачей")
+    void shouldDetectOverlapWithNeighbours() {
+        manager.createTask(new Task(0, "Morning", "Desc", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 9, 0)));
+        manager.createTask(new Task(0, "Noon", "Desc", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 12, 0)));
+        manager.createTask(new Task(0, "Evening", "Desc", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 18, 0)));
+
+        Task endsInNoon = new Task(0, "Late morning", "Desc", Status.NEW,
+                Duration.ofMinutes(90), LocalDateTime.of(2025, 1, 1, 11, 0));
+        Task startsInNoon = new Task(0, "Lunch", "Desc", Status.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 12, 30));
+        Task between = new Task(0, "Afternoon", "Desc", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 14, 0));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> manager.createTask(endsInNoon));
+        assertTrue(e.getMessage().contains("Noon"));
+        e = assertThrows(IllegalArgumentException.class, () -> manager.createTask(startsInNoon));
+        assertTrue(e.getMessage().contains("Noon"));
+        manager.createTask(between);
+
+        assertEquals(4, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    @DisplayName("Обновление с пересечением не должно убирать задачу из списка приоритетов")
+    void shouldKeepPrioritizedTaskWhenUpdateOverlaps() {
+        int first = manager.createTask(new Task(0, "Task 1", "Desc", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 10, 0)));
+        manager.createTask(new Task(0, "Task 2", "Desc", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 12, 0)));
+
+        Task moved = new Task(first, "Task 1", "Desc", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 12, 30));
+        assertThrows(IllegalArgumentException.class, () -> manager.updateTask(moved));
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(2, prioritized.size());
+        assertEquals(first, prioritized.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Агрегаты эпика: статус и время пересчитываются при изменении и удалении подзадач")
+    void shouldMaintainEpicAggregatesIncrementally() {
+        int epicId = manager.createEpic(new Epic(0, "Epic", "Desc"));
+        int first = manager.createSubtask(new Subtask(0, "Sub 1", "Desc", Status.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 9, 0), epicId));
+        int second = manager.createSubtask(new Subtask(0, "Sub 2", "Desc", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 11, 0), epicId));
+        int third = manager.createSubtask(new Subtask(0, "Sub 3", "Desc", Status.NEW,
+                Duration.ofMinutes(15), LocalDateTime.of(2025, 1, 1, 14, 0), epicId));
+
+        manager.updateSubtask(new Subtask(second, "Sub 2", "Desc", Status.DONE,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 11, 0), epicId));
+        Epic epic = manager.getEpicById(epicId);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(Duration.ofMinutes(105), epic.getDuration());
+
+        manager.deleteSubtaskById(first);
+        manager.deleteSubtaskById(third);
+        epic = manager.getEpicById(epicId);
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(Duration.ofMinutes(60), epic.getDuration());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 12, 0), epic.getEndTime());
+
+        manager.deleteAllSubtasks();
+        epic = manager.getEpicById(epicId);
+        assertEquals(Status.NEW, epic.getStatus());
+        assertEquals(Duration.ZERO, epic.getDuration());
+        assertNull(epic.getStartTime());
+    }
+
+    @Test
+    void findTasksShouldPageThroughAllTypesInIdOrder() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(manager.createTask(new Task(0, "Task " + i, "Desc", Status.NEW)));
+            int epicId = manager.createEpic(new Epic(0, "Epic " + i, "Desc"));
+            ids.add(epicId);
+            ids.add(manager.createSubtask(new Subtask(0, "Sub " + i, "Desc", Status.DONE, epicId)));
+        }
+        manager.deleteTaskById(ids.remove(3));
+
+        List<Integer> paged = new ArrayList<>();
+        Integer cursor = 0;
+        int pages = 0;
+        while (cursor != null) {
+            Page<Task> page = manager.findTasks(new TaskQuery().cursor(cursor).limit(4));
+            page.getItems().forEach(task -> paged.add(task.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        }
+
+        assertEquals(ids, paged);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void findTasksShouldApplyFilters() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        int early = manager.createTask(new Task(0, "Early", "Desc", Status.NEW, Duration.ofMinutes(30), base));
+        manager.createTask(new Task(0, "Done", "Desc", Status.DONE, Duration.ofMinutes(30), base.plusHours(1)));
+        int late = manager.createTask(new Task(0, "Late", "Desc", Status.NEW,
+                Duration.ofMinutes(30), base.plusHours(2)));
+        manager.createTask(new Task(0, "No time", "Desc", Status.NEW));
+        int epicId = manager.createEpic(new Epic(0, "Epic", "Desc"));
+
+        Page<Task> page = manager.findTasks(new TaskQuery()
+                .status(Status.NEW)
+                .types(EnumSet.of(TaskType.TASK))
+                .startFrom(base)
+                .startTo(base.plusHours(3)));
+
+        assertEquals(List.of(early, late), page.getItems().stream().map(Task::getId).toList());
+        assertNull(page.getNextCursor());
+        assertEquals(epicId, manager.findTasks(new TaskQuery().types(EnumSet.of(TaskType.EPIC)))
+                .getItems().get(0).getId());
+    }
+
+    @Test
+    void subtaskChangeShouldBumpEpicVersionButNotTasks() {
+        int taskId = manager.createTask(new Task(0, "Task", "Desc", Status.NEW));
+        int epicId = manager.createEpic(new Epic(0, "Epic", "Desc"));
+        long tasksVersion = manager.getVersion(TaskType.TASK);
+        long taskEntityVersion = manager.getEntityVersion(taskId);
+        long epicVersion = manager.getEntityVersion(epicId);
+
+        int subtaskId = manager.createSubtask(new Subtask(0, "Sub", "Desc", Status.DONE, epicId));
+
+        assertEquals(tasksVersion, manager.getVersion(TaskType.TASK));
+        assertEquals(taskEntityVersion, manager.getEntityVersion(taskId));
+        assertTrue(manager.getEntityVersion(epicId) > epicVersion);
+        assertTrue(manager.getVersion(TaskType.SUBTASK) > tasksVersion);
+
+        manager.deleteSubtaskById(subtaskId);
+        assertEquals(0, manager.getEntityVersion(subtaskId));
+    }
+
+    @Test
+    void batchShouldApplyInOrderAndResolveEpicCreatedInSameBatch() {
+        int oldId = manager.createTask(new Task(0, "Old", "Desc", Status.NEW,
+                Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 9, 0)));
+
+        // удалённая в пакете задача больше не занимает своё время
+        List<BatchResult> results = manager.executeBatch(List.of(
+                BatchOperation.create(new Epic(0, "Sprint", "Desc")),
+                BatchOperation.delete(TaskType.TASK, oldId),
+                BatchOperation.create(new Subtask(0, "Sub", "Desc", Status.DONE,
+                        Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 9, 15), -1))));
+
+        assertEquals(List.of(BatchResult.Status.CREATED, BatchResult.Status.DELETED, BatchResult.Status.CREATED),
+                results.stream().map(BatchResult::getStatus).toList());
+        int epicId = results.get(0).getId();
+        assertEquals(epicId, manager.getSubtaskById(results.get(2).getId()).getEpicId());
+        assertEquals(Status.DONE, manager.getEpicById(epicId).getStatus());
+        assertNull(manager.getTaskById(oldId));
+    }
+
+    @Test
+    void invalidBatchShouldChangeNothing() {
+        int taskId = manager.createTask(new Task(0, "Task", "Desc", Status.NEW));
+        long version = manager.getVersion(TaskType.TASK);
+
+        List<BatchResult> results = manager.executeBatch(List.of(
+                BatchOperation.create(new Task(0, "A", "Desc", Status.NEW,
+                        Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 12, 0))),
+                BatchOperation.create(new Task(0, "B", "Desc", Status.NEW,
+                        Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 12, 30))),
+                BatchOperation.update(new Task(taskId + 100, "Missing", "Desc", Status.NEW)),
+                BatchOperation.delete(TaskType.TASK, taskId)));
+
+        assertEquals(List.of(BatchResult.Status.NOT_APPLIED, BatchResult.Status.INVALID,
+                        BatchResult.Status.INVALID, BatchResult.Status.NOT_APPLIED),
+                results.stream().map(BatchResult::getStatus).toList());
+        assertNotNull(results.get(1).getError());
+        assertEquals(version, manager.getVersion(TaskType.TASK));
+        assertEquals(1, manager.getAllTasks().size());
+    }
+
+    @Test
+    @DisplayName("Задача из get*ById — изменяемая копия, которую можно передать в update*")
+    void copyOfTaskFromGetByIdShouldBeEditableAndUpdatable() {
+        int taskId = manager.createTask(new Task(0, "Task", "Desc", Status.NEW));
+        int epicId = manager.createEpic(new Epic(0, "Epic", "Desc"));
+        int subtaskId = manager.createSubtask(new Subtask(0, "Subtask", "Desc", Status.NEW, epicId));
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> manager.getTaskById(taskId).setStatus(Status.DONE));
+        Task task = manager.getTaskById(taskId).copy();
+        task.setStatus(Status.DONE);
+        Subtask subtask = manager.getSubtaskById(subtaskId).copy();
+        subtask.setStatus(Status.IN_PROGRESS);
+        Epic epic = manager.getEpicById(epicId).copy();
+        epic.setName("Renamed");
+
+        // пока копии не переданы в update*, менеджер и история их изменений не видят
+        assertEquals(Status.NEW, manager.getHistory().get(0).getStatus());
+        manager.updateTask(task);
+        manager.updateSubtask(subtask);
+        manager.updateEpic(epic);
+
+        assertEquals(Status.DONE, manager.getTaskById(taskId).getStatus());
+        assertEquals(Status.IN_PROGRESS, manager.getSubtaskById(subtaskId).getStatus());
+        assertEquals("Renamed", manager.getEpicById(epicId).getName());
+        assertEquals(Status.IN_PROGRESS, manager.getEpicById(epicId).getStatus());
+    }
 }
@@ -12,6 +12,12 @@ class ManagersTest {
         assertNotNull(taskManager, "Менеджер задач должен быть проинициализирован.");
     }
 
+    @Test
+    void getConcurrentShouldReturnThreadSafeTaskManager() {
+        TaskManager taskManager = Managers.getConcurrent();
+        assertInstanceOf(ConcurrentTaskManager.class, taskManager, "Менеджер задач должен быть потокобезопасным.");
+    }
+
     @Test
     void getDefaultHistoryShouldReturnInitializedHistoryManager() {
         HistoryManager historyManager = Managers.getDefaultHistory();
@@ -0,0 +1,107 @@
+package controllers;
+
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioHttpServerTest {
+    private TaskManager manager;
+    private HttpTaskServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        manager = Managers.getConcurrent();
+        server = new HttpTaskServer(manager, new ServerOptions().transport(Transport.NIO));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+        manager.close();
+    }
+
+    @Test
+    void pipelinedRequestsShouldBeAnsweredInOrderOnOneConnection() throws Exception {
+        int first = manager.createTask(new Task(0, "First", "Desc", Status.NEW));
+        int second = manager.createTask(new Task(0, "Second", "Desc", Status.NEW));
+
+        try (Socket socket = new Socket("localhost", 8080)) {
+            // три запроса одной записью, последний закрывает соединение
+            String requests = "GET /tasks/" + first + " HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    + "GET /tasks/" + second + " HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    + "GET /unknown HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+
+            String responses = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            int firstAt = responses.indexOf("\"First\"");
+            int secondAt = responses.indexOf("\"Second\"");
+            int notFoundAt = responses.indexOf("HTTP/1.1 404");
+            assertTrue(firstAt > 0 && firstAt < secondAt && secondAt < notFoundAt, responses);
+            assertEquals(3, responses.split("HTTP/1.1 ").length - 1);
+        }
+    }
+
+    @Test
+    void streamedListShouldMatchBufferedJson() throws Exception {
+        for (int i = 0; i < 2_000; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Description " + i, Status.NEW));
+        }
+        String expected = server.getGson().toJson(manager.getAllTasks());
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> plain = client.send(get("/tasks").build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, plain.statusCode());
+        assertEquals("chunked", plain.headers().firstValue("Transfer-Encoding").orElse(null));
+        assertEquals(expected, plain.body());
+
+        HttpResponse<InputStream> gzip = client.send(get("/tasks").header("Accept-Encoding", "gzip").build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = new GZIPInputStream(gzip.body())) {
+            assertEquals(expected, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void postBodyShouldReachHandlerAndConnectionShouldBeReused() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        for (int i = 0; i < 20; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\": \"Task " + i + "\", \"description\": \"D\", \"status\": \"NEW\"}"))
+                    .build();
+            assertEquals(201, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        assertEquals(20, manager.getAllTasks().size());
+    }
+
+    @Test
+    void malformedRequestShouldGetBadRequestAndClose() throws Exception {
+        try (Socket socket = new Socket("localhost", 8080)) {
+            OutputStream out = socket.getOutputStream();
+            out.write("NONSENSE\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            socket.getInputStream().transferTo(response);
+            assertTrue(response.toString(StandardCharsets.US_ASCII).startsWith("HTTP/1.1 400"));
+        }
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:8080" + path)).GET();
+    }
+}
@@ -0,0 +1,60 @@
+package controllers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void bucketShouldAllowBurstThenRefillAtRate() {
+        RateLimiter limiter = new RateLimiter(10, 5);
+        long now = 0;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("client", now));
+        }
+        assertEquals(SECOND / 10, limiter.tryAcquire("client", now));
+        assertEquals(0, limiter.tryAcquire("other", now));
+
+        now += SECOND / 10;
+        assertEquals(0, limiter.tryAcquire("client", now));
+        assertTrue(limiter.tryAcquire("client", now) > 0);
+
+        // за секунду бакет снова полон, но не больше burst
+        now += SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("client", now));
+        }
+        assertTrue(limiter.tryAcquire("client", now) > 0);
+    }
+
+    @Test
+    void idleBucketsShouldBeEvictedAfterSweepPeriod() {
+        RateLimiter limiter = new RateLimiter(10, 5);
+        limiter.tryAcquire("first", 0);
+        limiter.tryAcquire("second", 0);
+        limiter.tryAcquire("busy", 0);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("busy", SECOND * 9 / 10);
+        }
+        assertEquals(3, limiter.size());
+
+        // бакет busy опустошён и ещё не наполнился, остальные простаивают
+        limiter.tryAcquire("third", SECOND);
+        assertEquals(2, limiter.size());
+    }
+
+    @Test
+    void fullBucketsShouldBeSweptWhenTooManyClients() {
+        RateLimiter limiter = new RateLimiter(1_000, 1);
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("client-" + i, 0);
+        }
+        assertEquals(10_000, limiter.size());
+
+        limiter.tryAcquire("late", SECOND);
+        assertEquals(1, limiter.size());
+    }
+}
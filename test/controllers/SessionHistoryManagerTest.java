@@ -0,0 +1,136 @@
+package controllers;
+
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHistoryManagerTest {
+
+    @AfterEach
+    void tearDown() {
+        SessionHistoryManager.setCurrentClient(null);
+    }
+
+    @Test
+    void eachClientShouldSeeOnlyItsOwnViews() {
+        SessionHistoryManager history = new SessionHistoryManager();
+        view(history, "alice", 1, 2);
+        view(history, "bob", 3);
+        view(history, null, 4);
+
+        assertEquals(List.of(1, 2), idsOf(history, "alice"));
+        assertEquals(List.of(3), idsOf(history, "bob"));
+        assertEquals(List.of(4), idsOf(history, null));
+        assertEquals(List.of(), idsOf(history, "carol"));
+        assertEquals(3, history.getSessionCount(), "Чтение не создаёт сессию");
+
+        SessionHistoryManager.setCurrentClient("alice");
+        long alice = history.getVersion();
+        SessionHistoryManager.setCurrentClient("bob");
+        assertNotEquals(alice, history.getVersion());
+    }
+
+    @Test
+    void asyncWrapperShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncHistoryManager(new SessionHistoryManager()));
+    }
+
+    @Test
+    void removalShouldReachEverySession() {
+        SessionHistoryManager history = new SessionHistoryManager();
+        view(history, "alice", 1, 2);
+        view(history, "bob", 2, 3);
+        SessionHistoryManager.setCurrentClient("bob");
+        long before = history.getVersion();
+
+        history.remove(2);
+
+        assertEquals(List.of(1), idsOf(history, "alice"));
+        assertEquals(List.of(3), idsOf(history, "bob"));
+        SessionHistoryManager.setCurrentClient("bob");
+        assertTrue(history.getVersion() > before);
+    }
+
+    @Test
+    void sessionHistoryShouldBeBounded() {
+        SessionHistoryManager history = new SessionHistoryManager(2, 10, Long.MAX_VALUE, Duration.ofHours(1));
+        view(history, "alice", 1, 2, 3);
+
+        assertEquals(List.of(2, 3), idsOf(history, "alice"));
+    }
+
+    @Test
+    void leastRecentSessionsShouldBeEvictedOverGlobalLimits() {
+        SessionHistoryManager history = new SessionHistoryManager(10, 10, Long.MAX_VALUE, Duration.ofHours(1));
+        for (int client = 0; client < 11; client++) {
+            view(history, "client-" + client, client + 1);
+        }
+
+        assertEquals(9, history.getSessionCount());
+        assertEquals(List.of(), idsOf(history, "client-0"));
+        assertEquals(List.of(11), idsOf(history, "client-10"));
+
+        SessionHistoryManager bounded = new SessionHistoryManager(100, 1_000, 20_000, Duration.ofHours(1));
+        for (int client = 0; client < 100; client++) {
+            view(bounded, "client-" + client, 1, 2, 3);
+        }
+        assertTrue(bounded.getBytes() <= 20_000, "bytes: " + bounded.getBytes());
+        assertEquals(List.of(1, 2, 3), idsOf(bounded, "client-99"));
+    }
+
+    @Test
+    void idleSessionsShouldExpire() throws Exception {
+        SessionHistoryManager history = new SessionHistoryManager(10, 100, Long.MAX_VALUE, Duration.ofMillis(40));
+        view(history, "idle", 1);
+        Thread.sleep(60);
+
+        view(history, "active", 2);
+
+        assertEquals(1, history.getSessionCount());
+        assertEquals(List.of(), idsOf(history, "idle"));
+        assertEquals(List.of(2), idsOf(history, "active"));
+    }
+
+    @Test
+    void removalsWithoutViewsShouldBeAppliedAndExpireSessions() throws Exception {
+        SessionHistoryManager history = new SessionHistoryManager(10, 100, Long.MAX_VALUE, Duration.ofHours(1));
+        view(history, "alice", 2, 3, 4);
+        long before = history.getBytes();
+        SessionHistoryManager expiring = new SessionHistoryManager(10, 100, Long.MAX_VALUE, Duration.ofMillis(40));
+        view(expiring, "idle", 1);
+        Thread.sleep(60);
+
+        // только удаления: ни просмотров, ни чтений истории
+        for (int id = 2; id < 2 + SessionHistoryManager.REMOVAL_SWEEP_INTERVAL; id++) {
+            history.remove(id);
+            expiring.remove(id);
+        }
+
+        assertTrue(history.getBytes() < before, "bytes: " + history.getBytes() + " before: " + before);
+        assertEquals(List.of(), idsOf(history, "alice"));
+        assertEquals(0, expiring.getSessionCount());
+    }
+
+    private static void view(HistoryManager history, String client, int... ids) {
+        SessionHistoryManager.setCurrentClient(client);
+        for (int id : ids) {
+            history.add(new Task(id, "Task" + id, "Desc", Status.NEW));
+        }
+        SessionHistoryManager.setCurrentClient(null);
+    }
+
+    private static List<Integer> idsOf(HistoryManager history, String client) {
+        SessionHistoryManager.setCurrentClient(client);
+        try {
+            return history.getHistory().stream().map(Task::getId).toList();
+        } finally {
+            SessionHistoryManager.setCurrentClient(null);
+        }
+    }
+}
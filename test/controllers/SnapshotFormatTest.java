@@ -0,0 +1,171 @@
+package controllers;
+
+import model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFormatTest {
+    private Path tempFile;
+    private int taskId;
+    private int epicId;
+    private int doneSubtaskId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tempFile = Files.createTempFile("tasks", ".snapshot");
+    }
+
+    @ParameterizedTest
+    @EnumSource(SnapshotFormat.class)
+    void shouldRoundTripAllFields(SnapshotFormat format) {
+        FileBackedTaskManager original = fill(new FileBackedTaskManager(tempFile.toFile(), options(format)));
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), options(format));
+
+        assertSameState(original, reloaded);
+        assertEquals(Status.IN_PROGRESS, reloaded.getEpicById(epicId).getStatus());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 9, 15, 42, 123_000_000),
+                reloaded.getTaskById(taskId).getStartTime());
+    }
+
+    @ParameterizedTest
+    @EnumSource(SnapshotFormat.class)
+    void shouldReadSnapshotWrittenInOtherFormat(SnapshotFormat format) {
+        SnapshotFormat other = format == SnapshotFormat.CSV ? SnapshotFormat.BINARY : SnapshotFormat.CSV;
+        FileBackedTaskManager original = fill(new FileBackedTaskManager(tempFile.toFile(), options(format)));
+
+        // формат определяется по содержимому, а следующий снимок пишется в новом формате
+        FileBackedTaskManager converted = FileBackedTaskManager.loadFromFile(tempFile.toFile(), options(other));
+        converted.checkpoint();
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), options(format));
+
+        assertSameState(original, reloaded);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SnapshotFormat.class)
+    void exportedCsvShouldMatchSnapshot(SnapshotFormat format) throws Exception {
+        FileBackedTaskManager original = fill(new FileBackedTaskManager(tempFile.toFile(), options(format)));
+        Path exported = Files.createTempFile("export", ".csv");
+
+        original.exportCsv(exported.toFile());
+
+        assertTrue(Files.readString(exported).startsWith("id,type,name"));
+        assertSameState(original, FileBackedTaskManager.loadFromFile(exported.toFile()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SnapshotFormat.class)
+    void journalShouldReplayOnTopOfSnapshot(SnapshotFormat format) {
+        PersistenceOptions options = options(format).storageMode(StorageMode.JOURNAL);
+        FileBackedTaskManager original = fill(new FileBackedTaskManager(tempFile.toFile(), options));
+        original.checkpoint();
+        original.updateSubtask(new Subtask(doneSubtaskId, "Reopened", "Desc", Status.NEW,
+                Duration.ofMinutes(45), LocalDateTime.of(2025, 3, 2, 14, 0), epicId));
+        original.deleteTaskById(taskId);
+        original.close();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile.toFile(), options);
+
+        assertSameState(original, reloaded);
+        assertEquals(Status.NEW, reloaded.getEpicById(epicId).getStatus());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SnapshotFormat.class, names = "BINARY")
+    void truncatedBinarySnapshotShouldFailLoudly(SnapshotFormat format) throws Exception {
+        fill(new FileBackedTaskManager(tempFile.toFile(), options(format)));
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile.toFile(), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(tempFile.toFile(), options(format)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SnapshotFormat.class, names = "BINARY")
+    void unknownTypeByteShouldFailWithRecordOffset(SnapshotFormat format) throws Exception {
+        fill(new FileBackedTaskManager(tempFile.toFile(), options(format)));
+        // тип первой записи идёт сразу за заголовком: magic, версия и количество записей
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile.toFile(), "rw")) {
+            raf.seek(10);
+            raf.writeByte(TaskType.values().length);
+        }
+
+        ManagerSaveException e = assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(tempFile.toFile(), options(format)));
+        assertTrue(e.getMessage().contains("offset 10"), e.getMessage());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SnapshotFormat.class, names = "BINARY")
+    void corruptStringLengthShouldFailBeforeAllocating(SnapshotFormat format) throws Exception {
+        fill(new FileBackedTaskManager(tempFile.toFile(), options(format)));
+        // длина имени первой записи: заголовок 10 байт и 30 байт полей до строк
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile.toFile(), "rw")) {
+            raf.seek(40);
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+
+        ManagerSaveException e = assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(tempFile.toFile(), options(format)));
+        assertTrue(e.getMessage().contains("offset 10"), e.getMessage());
+        assertTrue(e.getMessage().contains("string length " + Integer.MAX_VALUE), e.getMessage());
+    }
+
+    private PersistenceOptions options(SnapshotFormat format) {
+        return new PersistenceOptions().snapshotFormat(format).compactionInterval(null);
+    }
+
+    private FileBackedTaskManager fill(FileBackedTaskManager manager) {
+        taskId = manager.createTask(new Task(0, "Timed task", "Line 1\nLine 2", Status.IN_PROGRESS,
+                Duration.ofMinutes(90), LocalDateTime.of(2025, 3, 1, 9, 15, 42, 123_000_000)));
+        manager.createTask(new Task(0, "Задача без времени", "Описание", Status.NEW));
+        epicId = manager.createEpic(new Epic(0, "Epic", "Epic description"));
+        doneSubtaskId = manager.createSubtask(new Subtask(0, "Done", "Desc", Status.DONE,
+                Duration.ofMinutes(45), LocalDateTime.of(2025, 3, 2, 14, 0), epicId));
+        manager.createSubtask(new Subtask(0, "Open", "Desc", Status.NEW, epicId));
+        return manager;
+    }
+
+    private void assertSameState(TaskManager expected, TaskManager actual) {
+        List<Task> expectedTasks = sorted(expected.getAllTasks());
+        List<Task> actualTasks = sorted(actual.getAllTasks());
+        assertEquals(expectedTasks.size(), actualTasks.size());
+        for (int i = 0; i < expectedTasks.size(); i++) {
+            Task e = expectedTasks.get(i);
+            Task a = actualTasks.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getType(), a.getType());
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getDescription(), a.getDescription());
+            assertEquals(e.getStatus(), a.getStatus());
+            assertEquals(e.getDuration(), a.getDuration());
+            assertEquals(e.getStartTime(), a.getStartTime());
+            assertEquals(e.getEndTime(), a.getEndTime());
+            if (e instanceof Subtask) {
+                assertEquals(((Subtask) e).getEpicId(), ((Subtask) a).getEpicId());
+            }
+            if (e instanceof Epic) {
+                assertEquals(((Epic) e).getSubtaskIds(), ((Epic) a).getSubtaskIds());
+            }
+        }
+        assertEquals(expected.getPrioritizedTasks(), actual.getPrioritizedTasks());
+    }
+
+    private List<Task> sorted(List<Task> tasks) {
+        tasks.sort(Comparator.comparingInt(Task::getId));
+        return tasks;
+    }
+}
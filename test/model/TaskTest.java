@@ -13,4 +13,36 @@ class TaskTest {
 
         assertEquals(task1, task2, "Задачи с одинаковым id должны быть равны.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void snapshotShouldBeSharedUntilTaskChanges() {
+        Task task = new Task(1, "Task", "Description", Status.NEW);
+        Task snapshot = task.snapshot();
+
+        assertSame(snapshot, task.snapshot(), "Без изменений снимок не копируется заново");
+        assertSame(snapshot, snapshot.snapshot());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.setStatus(Status.DONE));
+
+        task.setStatus(Status.DONE);
+        assertNotSame(snapshot, task.snapshot());
+        assertEquals(Status.NEW, snapshot.getStatus());
+        assertEquals(Status.DONE, task.snapshot().getStatus());
+    }
+
+    @Test
+    void snapshotShouldKeepSubtaskAndEpicFields() {
+        Subtask subtask = new Subtask(2, "Sub", "Desc", Status.DONE, 1);
+        Epic epic = new Epic(1, "Epic", "Desc");
+        epic.addSubtaskId(2);
+        epic.setStatus(Status.DONE);
+
+        Subtask subtaskSnapshot = subtask.snapshot();
+        Epic epicSnapshot = epic.snapshot();
+        epic.addSubtaskId(3);
+
+        assertEquals(1, subtaskSnapshot.getEpicId());
+        assertEquals(Status.DONE, epicSnapshot.getStatus());
+        assertEquals(java.util.List.of(2), epicSnapshot.getSubtaskIds());
+        assertThrows(UnsupportedOperationException.class, () -> epicSnapshot.addSubtaskId(4));
+    }
+}
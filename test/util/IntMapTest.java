@@ -0,0 +1,108 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntMapTest {
+
+    @Test
+    void shouldBehaveLikeHashMapUnderRandomOperations() {
+        IntMap<String> map = new IntMap<>();
+        Map<Integer, String> expected = new LinkedHashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(2_000) - 100;
+            switch (random.nextInt(4)) {
+                case 0, 1 -> assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+                case 2 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), map.keys());
+        for (int key = -100; key < 1_900; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+    }
+
+    @Test
+    void shouldKeepInsertionOrderAfterRemovalsAndCompaction() {
+        IntMap<Integer> map = new IntMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put(i, i);
+        }
+        map.removeIf(value -> value % 3 != 0);
+        for (int i = 1_000; i < 2_000; i++) {
+            map.put(i, i);
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        map.forEachKey(keys::add);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1_000; i += 3) {
+            expected.add(i);
+        }
+        for (int i = 1_000; i < 2_000; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, keys);
+    }
+
+    @Test
+    void valuesViewShouldSupportRemovalThroughIterator() {
+        IntMap<String> map = new IntMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(3, "c");
+
+        map.values().removeIf("b"::equals);
+
+        assertFalse(map.containsKey(2));
+        assertEquals(List.of("a", "c"), new ArrayList<>(map.values()));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+
+    @Test
+    void ascendingFromShouldStartAfterCursorEvenWhenKeysWereAddedOutOfOrder() {
+        IntMap<Integer> map = new IntMap<>();
+        for (int key : new int[]{10, 20, 30, 40}) {
+            map.put(key, key);
+        }
+        map.remove(30);
+        assertEquals(List.of(20, 40), collect(map.ascendingFrom(11)));
+
+        map.put(5, 5);
+        map.put(25, 25);
+        assertEquals(List.of(20, 25, 40), collect(map.ascendingFrom(11)));
+        map.sortByKey();
+        assertEquals(List.of(5, 10, 20, 25, 40), collect(map.ascendingFrom(Integer.MIN_VALUE)));
+        assertEquals(25, map.get(25));
+    }
+
+    @Test
+    void intSetShouldIgnoreDuplicatesAndPrintAsList() {
+        IntSet set = new IntSet();
+        set.add(5);
+        set.add(3);
+        set.add(5);
+        set.remove(7);
+
+        assertEquals(List.of(5, 3), set.toList());
+        assertEquals("[5, 3]", set.toString());
+        assertTrue(set.contains(3));
+    }
+
+    private static List<Integer> collect(Iterator<Integer> iterator) {
+        List<Integer> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void quantilesShouldStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(7);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // логнормальное распределение — от десятков микросекунд до сотен миллисекунд
+            values[i] = (long) Math.exp(12 + 1.5 * random.nextGaussian());
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.5, 0.9, 0.99, 0.999, 1.0}) {
+            long exact = values[(int) Math.ceil(q * values.length) - 1];
+            long estimate = histogram.quantile(q);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 16 + 1,
+                    "q=" + q + ": exact " + exact + ", estimate " + estimate);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(Arrays.stream(values).sum(), histogram.getSum());
+    }
+
+    @Test
+    void bucketsShouldCoverEveryValueInOrder() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.upperBound(index) >= value);
+            if (index > 0) assertTrue(LatencyHistogram.upperBound(index - 1) < value);
+        }
+        assertEquals(0, new LatencyHistogram().quantile(0.99));
+    }
+
+    @Test
+    void concurrentRecordsShouldAllBeCounted() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.execute(() -> {
+                for (int i = 1; i <= 50_000; i++) histogram.record(i);
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(200_000, histogram.getCount());
+        assertEquals(50_000, histogram.getMax());
+        assertEquals(4L * 50_000 * 50_001 / 2, histogram.getSum());
+    }
+}